@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Compares time-to-first-request of the plain jar, Spring AOT, AppCDS and the native image.
+#
+# Every variant is built first, then started RUNS times. The time from launching the
+# process until the first HTTP response is reported in milliseconds.
+#
+# Usage: scripts/startup-benchmark.sh [variant...]   (default: jar aot cds native)
+# The application needs the same environment as in production, e.g. SPRING_DATASOURCE_URL,
+# DB_USER, DB_PASS and BUCKET_NAME (see .env.example).
+#
+# The aot and native variants evaluate @ConditionalOnProperty at build time, so
+# scrubber.enabled, tier.local.enabled, profiling.enabled and spring.cache.type are fixed
+# when they are built and ignored at startup. Set AOT_ARGS to the values to build with,
+# e.g. AOT_ARGS="-Dtier.local.enabled=true -Dspring.cache.type=redis".
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+AOT_ARGS=${AOT_ARGS:-}
+URL="http://localhost:${PORT}/books/isbn/0000000000000"
+JAR="target/diglib-0.0.1-SNAPSHOT.jar"
+if [ $# -gt 0 ]; then
+    VARIANTS=("$@")
+else
+    VARIANTS=(jar aot cds native)
+fi
+
+build() {
+    case "$1" in
+        jar)    mvn -B -q -DskipTests clean package ;;
+        aot)    mvn -B -q -DskipTests -Paot -Dspring-boot.aot.jvmArguments="$AOT_ARGS" clean package ;;
+        cds)    mvn -B -q -DskipTests -Pcds clean package ;;
+        native) mvn -B -q -DskipTests -Pnative -Dspring-boot.aot.jvmArguments="$AOT_ARGS" clean native:compile ;;
+    esac
+}
+
+start() {
+    case "$1" in
+        jar)    exec java -jar "$JAR" ;;
+        aot)    exec java -Dspring.aot.enabled=true -jar "$JAR" ;;
+        cds)    cd target/extracted && exec java -XX:SharedArchiveFile=application.jsa -jar diglib-0.0.1-SNAPSHOT.jar ;;
+        native) exec target/diglib ;;
+    esac
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+for variant in "${VARIANTS[@]}"; do
+    echo "Building ${variant}..."
+    build "$variant"
+    total=0
+    for run in $(seq 1 "$RUNS"); do
+        begin=$(now_ms)
+        (start "$variant") > "target/startup-${variant}.log" 2>&1 &
+        pid=$!
+        until curl -s -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "${variant} exited before serving a request, see target/startup-${variant}.log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        elapsed=$(( $(now_ms) - begin ))
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        total=$(( total + elapsed ))
+        echo "  ${variant} run ${run}: ${elapsed} ms"
+    done
+    echo "${variant}: average time to first request $(( total / RUNS )) ms over ${RUNS} runs"
+done
@@ -0,0 +1,34 @@
+package com.itp.DigLib.api.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the {@code books} cache. Puts and evictions made inside a transaction are
+ * applied only once it commits, so a rolled back insert never leaves its book in the
+ * cache. Failures of the cache are treated as misses, so that lookups fall back to the
+ * database instead of failing while Redis is unavailable.
+ */
+@Configuration
+public class CacheConfig implements CachingConfigurer {
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    public CacheConfig(ObjectProvider<CacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public CacheManager cacheManager() {
+        return new TransactionAwareCacheManagerProxy(cacheManager.getObject());
+    }
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+}
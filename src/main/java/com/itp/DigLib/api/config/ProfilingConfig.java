@@ -0,0 +1,71 @@
+package com.itp.DigLib.api.config;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.itp.DigLib.api.profiling.ContinuousRecording;
+import com.itp.DigLib.api.profiling.ProfilingAccessInterceptor;
+import com.itp.DigLib.api.profiling.ProfilingInterceptor;
+import com.itp.DigLib.api.profiling.RepositoryProfilingPostProcessor;
+
+/**
+ * Profiling mode, enabled with {@code profiling.enabled}. Runs a continuous JFR
+ * recording with events for content reads and uploads, repository calls and requests,
+ * and measures CPU time and allocations per endpoint. The recording and the endpoint
+ * totals are served under {@code /profiling}, only to requests carrying
+ * {@code profiling.token}, and the recording can be dumped once per
+ * {@code profiling.dump-interval-seconds} per client.
+ */
+@Configuration
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingConfig implements WebMvcConfigurer {
+    @Value("${profiling.token:}")
+    private String token;
+
+    @Value("${profiling.dump-interval-seconds:60}")
+    private int dumpIntervalSeconds;
+
+    @Bean(destroyMethod = "close")
+    public ContinuousRecording continuousRecording(
+            @Value("${profiling.settings:profile}") String settings,
+            @Value("${profiling.max-age-minutes:30}") long maxAgeMinutes,
+            @Value("${profiling.max-size-mb:256}") long maxSizeMb,
+            @Value("${profiling.threshold-ms:0}") long thresholdMs
+    ) throws IOException, ParseException {
+        return new ContinuousRecording(settings, Duration.ofMinutes(maxAgeMinutes), maxSizeMb * 1024 * 1024,
+                Duration.ofMillis(thresholdMs));
+    }
+
+    @Bean
+    public ProfilingInterceptor profilingInterceptor() {
+        return new ProfilingInterceptor();
+    }
+
+    // Static, so the post processor is created before the repositories it advises
+    @Bean
+    public static RepositoryProfilingPostProcessor repositoryProfilingPostProcessor() {
+        return new RepositoryProfilingPostProcessor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ProfilingAccessInterceptor(token))
+                .addPathPatterns("/profiling", "/profiling/**")
+                .order(-2);
+        // A dump copies up to profiling.max-size-mb, so each client gets one per interval
+        registry.addInterceptor(new RateLimitInterceptor("profiling", null, 1, 1.0 / dumpIntervalSeconds, 1000, Set.of()))
+                .addPathPatterns("/profiling/recording")
+                .order(-2);
+        // Registered before the rate limits, so rejected requests are measured too
+        registry.addInterceptor(profilingInterceptor()).order(-1);
+    }
+}
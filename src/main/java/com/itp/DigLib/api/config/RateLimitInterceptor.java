@@ -0,0 +1,91 @@
+package com.itp.DigLib.api.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects requests with {@code 429 Too Many Requests} once a client has used up its
+ * {@link TokenBucket}. Clients are identified by their {@code X-API-Key} header when it
+ * holds a configured key, and by their address otherwise, so made up keys cannot be
+ * used to get a fresh bucket. The address is the one of the connection unless
+ * forwarded headers from trusted proxies are enabled with
+ * {@code server.forward-headers-strategy}.
+ *
+ * <p>Buckets are kept in a concurrent Caffeine cache, so requests of different clients
+ * never contend on a shared lock. At most {@code maxClients} buckets are kept, and a
+ * bucket is forgotten once it has been idle long enough to have refilled completely,
+ * since a new bucket is then no different.</p>
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+    static final String API_KEY_HEADER = "X-API-Key";
+
+    private final String name;
+    private final String method;
+    private final int capacity;
+    private final double refillPerSecond;
+    private final Set<String> apiKeys;
+    private final Cache<String, TokenBucket> buckets;
+
+    /**
+     * @param name the name of the limit, used in log messages
+     * @param method the HTTP method to limit, or {@code null} to limit every method
+     * @param capacity the number of requests a client may burst
+     * @param refillPerSecond the sustained number of requests per second per client
+     * @param maxClients the number of clients tracked before idle clients are forgotten
+     * @param apiKeys the API keys that identify a client
+     */
+    public RateLimitInterceptor(String name, String method, int capacity, double refillPerSecond, int maxClients,
+                                Set<String> apiKeys) {
+        this.name = name;
+        this.method = method;
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos((long) Math.ceil(capacity / refillPerSecond * 1e9)))
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (method != null && !method.equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String client = clientKey(request);
+        TokenBucket bucket = buckets.get(client, key -> new TokenBucket(capacity, refillPerSecond));
+        if (bucket.tryAcquire()) {
+            return true;
+        }
+        logger.warn("Rate limit '{}' exceeded by client: {}", name, client);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, bucket.secondsUntilAvailable())));
+        return false;
+    }
+
+    /**
+     * Returns the number of clients currently tracked, after pending evictions.
+     */
+    long trackedClients() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
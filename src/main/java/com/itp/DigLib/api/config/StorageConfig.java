@@ -0,0 +1,133 @@
+package com.itp.DigLib.api.config;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.threeten.bp.Duration;
+
+import com.google.api.gax.retrying.RetrySettings;
+import com.google.cloud.http.HttpTransportOptions;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.itp.DigLib.api.service.CircuitBreaker;
+import com.itp.DigLib.api.service.ContentCache;
+import com.itp.DigLib.api.service.LocalContentCache;
+import com.itp.DigLib.api.service.LocalDiskTier;
+import com.itp.DigLib.api.service.RedisContentCache;
+import com.itp.DigLib.api.service.TieredContentCache;
+
+/**
+ * Configures the cloud storage client with explicit deadlines instead of the SDK
+ * defaults, along with the circuit breaker, cache and executor used around it.
+ * The client is created lazily on first use, keeping credential resolution out of
+ * application startup.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @Lazy
+    public Storage storage(
+            @Value("${storage.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${storage.read-timeout-ms:5000}") int readTimeoutMs,
+            @Value("${storage.deadline-ms:10000}") long deadlineMs,
+            @Value("${storage.max-attempts:3}") int maxAttempts
+    ) {
+        RetrySettings retrySettings = StorageOptions.getDefaultRetrySettings().toBuilder()
+                .setTotalTimeout(Duration.ofMillis(deadlineMs))
+                .setMaxAttempts(maxAttempts)
+                .build();
+        return StorageOptions.newBuilder()
+                .setRetrySettings(retrySettings)
+                .setTransportOptions(HttpTransportOptions.newBuilder()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setReadTimeout(readTimeoutMs)
+                        .build())
+                .build()
+                .getService();
+    }
+
+    @Bean
+    public CircuitBreaker storageCircuitBreaker(
+            @Value("${storage.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${storage.breaker.open-ms:30000}") long openMs
+    ) {
+        return new CircuitBreaker("cloud-storage", failureThreshold, openMs);
+    }
+
+    /**
+     * The content cache is local to the replica by default. With {@code cache.redis.enabled}
+     * the local cache becomes a near cache in front of a Redis cache shared by all replicas.
+     */
+    @Bean
+    public ContentCache contentCache(
+            @Value("${cache.local.max-bytes:67108864}") long maxBytes,
+            @Value("${cache.redis.enabled:false}") boolean redisEnabled,
+            @Value("${cache.redis.ttl-minutes:1440}") long ttlMinutes,
+            ObjectProvider<RedisConnectionFactory> redisConnectionFactory
+    ) {
+        LocalContentCache local = new LocalContentCache(maxBytes);
+        if (!redisEnabled) {
+            return local;
+        }
+        return new TieredContentCache(local,
+                new RedisContentCache(redisConnectionFactory.getObject(), java.time.Duration.ofMinutes(ttlMinutes)));
+    }
+
+    /**
+     * Popular books are copied to local disk with {@code tier.local.enabled}, which should
+     * point {@code tier.local.dir} at a persistent local SSD.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "tier.local.enabled", havingValue = "true")
+    public LocalDiskTier localDiskTier(
+            @Value("${tier.local.dir:/app/bookcontents}") String directory,
+            @Value("${tier.local.max-bytes:10737418240}") long maxBytes,
+            @Value("${tier.local.admit-after:3}") int admitAfter,
+            @Value("${tier.local.decay-after:100000}") long decayAfter
+    ) throws IOException {
+        return new LocalDiskTier(Paths.get(directory), maxBytes, admitAfter, decayAfter);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService storageExecutor(@Value("${storage.executor.threads:32}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "storage-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the chunk reads of whole book downloads, separate from {@code storageExecutor}
+     * so that downloads cannot starve hedged reads and local disk copies.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService downloadExecutor(@Value("${download.threads:16}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "download-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
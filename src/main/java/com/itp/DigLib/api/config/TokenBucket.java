@@ -0,0 +1,60 @@
+package com.itp.DigLib.api.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ *
+ * <p>Instead of a token count the bucket keeps a single timestamp, the time at which it
+ * will be full again (the generic cell rate algorithm). Taking a token moves that time
+ * forward by one refill interval, and a token is available as long as the bucket would
+ * not end up more than {@code capacity} intervals behind. The whole state fits in one
+ * {@link AtomicLong}, so concurrent requests only ever contend on a single CAS.</p>
+ */
+public class TokenBucket {
+    private final long intervalNanos;    // Time to refill a single token
+    private final long burstNanos;       // Time to refill the entire bucket
+    private final AtomicLong fullAtNanos;
+
+    public TokenBucket(int capacity, double refillPerSecond) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+        this.fullAtNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return {@code true} if a token was taken
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long fullAt = fullAtNanos.get();
+            long next = Math.max(fullAt, nowNanos) + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (fullAtNanos.compareAndSet(fullAt, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns how long a caller has to wait before the next token is available.
+     *
+     * @return the wait in seconds, rounded up
+     */
+    public long secondsUntilAvailable() {
+        long waitNanos = fullAtNanos.get() + intervalNanos - burstNanos - System.nanoTime();
+        return waitNanos <= 0 ? 0 : (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
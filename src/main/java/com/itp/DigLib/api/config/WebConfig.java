@@ -0,0 +1,46 @@
+package com.itp.DigLib.api.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers per-client rate limits in front of the content and upload endpoints.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    @Value("${ratelimit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${ratelimit.max-clients:100000}")
+    private int maxClients;
+
+    @Value("${ratelimit.api-keys:}")
+    private Set<String> apiKeys;
+
+    @Value("${ratelimit.content.capacity:120}")
+    private int contentCapacity;
+
+    @Value("${ratelimit.content.refill-per-second:20}")
+    private double contentRefillPerSecond;
+
+    @Value("${ratelimit.upload.capacity:5}")
+    private int uploadCapacity;
+
+    @Value("${ratelimit.upload.refill-per-second:0.2}")
+    private double uploadRefillPerSecond;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!rateLimitEnabled) {
+            return;
+        }
+        registry.addInterceptor(new RateLimitInterceptor("content", null, contentCapacity, contentRefillPerSecond, maxClients, apiKeys))
+                .addPathPatterns("/books/*/content", "/books/*/content/**", "/books/*/download");
+        registry.addInterceptor(new RateLimitInterceptor("upload", "POST", uploadCapacity, uploadRefillPerSecond, maxClients, apiKeys))
+                .addPathPatterns("/books");
+    }
+}
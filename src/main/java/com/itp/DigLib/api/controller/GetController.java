@@ -1,7 +1,14 @@
 package com.itp.DigLib.api.controller;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,23 +16,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.BookChange;
+import com.itp.DigLib.api.model.ChangeFeed;
 import com.itp.DigLib.api.model.PagedContent;
 import com.itp.DigLib.api.service.BookContentService;
+import com.itp.DigLib.api.service.BookDownloadService;
+import com.itp.DigLib.api.service.CatalogueExportService;
+import com.itp.DigLib.db.BookChangeRepository;
 import com.itp.DigLib.db.BookRepository;
 
 @RestController
 @RequestMapping("/books")
 public class GetController {
     private static final Logger logger = LoggerFactory.getLogger(GetController.class);
+    static final int MAX_BATCH_SIZE = 500;
+    static final int MAX_RANGE_LENGTH = 1024 * 1024;
+    static final int MAX_CHANGES = 1000;
+    private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
 
     @Autowired
     private BookRepository bookRepo;
@@ -33,6 +58,15 @@ public class GetController {
     @Autowired
     private BookContentService bookContentService;
 
+    @Autowired
+    private BookChangeRepository bookChangeRepo;
+
+    @Autowired
+    private CatalogueExportService catalogueExportService;
+
+    @Autowired
+    private BookDownloadService bookDownloadService;
+
     @GetMapping
     public @ResponseBody Page<Book> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
@@ -71,6 +105,117 @@ public class GetController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Returns the catalogue changes after a sync token, oldest first. Clients start with
+     * {@code since=0} and pass the returned {@code nextToken} on the next call, so each
+     * sync only transfers what changed since the previous one. Deleted books appear as
+     * tombstones.
+     *
+     * @param since the token returned by the previous call, or 0 for the full history
+     * @param limit the maximum number of changes to return, at most {@value #MAX_CHANGES}
+     * @return the changes after the token
+     */
+    @GetMapping("/changes")
+    public @ResponseBody ResponseEntity<ChangeFeed> getChanges(
+            @RequestParam(defaultValue = "0") String since,
+            @RequestParam(defaultValue = "500") int limit
+    ) {
+        long sinceId;
+        try {
+            sinceId = Long.parseLong(since);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid change token: {}", since);
+            return ResponseEntity.badRequest().build();
+        }
+        if (sinceId < 0 || limit < 1 || limit > MAX_CHANGES) {
+            logger.error("Invalid change feed request with since: {}, limit: {}", since, limit);
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Fetching up to {} changes since: {}", limit, sinceId);
+
+        List<BookChange> changes = bookChangeRepo.findByIdGreaterThanOrderByIdAsc(sinceId, PageRequest.of(0, limit + 1));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        Set<Integer> createdIds = new LinkedHashSet<>();
+        for (BookChange change : changes) {
+            if (change.getType() == BookChange.Type.CREATED) {
+                createdIds.add(change.getBookId());
+            }
+        }
+        Map<Integer, Book> booksById = new HashMap<>();
+        if (!createdIds.isEmpty()) {
+            for (Book book : bookRepo.findAllById(createdIds)) {
+                booksById.put(book.getID(), book);
+            }
+        }
+
+        List<ChangeFeed.Entry> entries = new ArrayList<>(changes.size());
+        for (BookChange change : changes) {
+            Book book = change.getType() == BookChange.Type.CREATED ? booksById.get(change.getBookId()) : null;
+            entries.add(new ChangeFeed.Entry(change, book));
+        }
+        long nextId = changes.isEmpty() ? sinceId : changes.get(changes.size() - 1).getId();
+        logger.info("Fetched {} changes, next token: {}", entries.size(), nextId);
+        return ResponseEntity.ok(new ChangeFeed(entries, String.valueOf(nextId), hasMore));
+    }
+
+    /**
+     * Streams the entire catalogue as newline delimited JSON in a single response.
+     *
+     * @return the catalogue, one book per line
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        logger.info("Exporting catalogue");
+        StreamingResponseBody body = out -> catalogueExportService.exportTo(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/isbn/{isbn}")
+    public @ResponseBody ResponseEntity<Book> getBookByIsbn(@PathVariable String isbn) {
+        logger.info("Fetching book with ISBN: {}", isbn);
+        return bookRepo.findByIsbn(isbn)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Resolves several books in a single {@code IN} query. Books are returned in the
+     * order their IDs were requested; unknown IDs are skipped.
+     *
+     * @param ids the IDs to look up, at most {@value #MAX_BATCH_SIZE}
+     * @return the books that were found
+     */
+    @PostMapping("/batch")
+    public @ResponseBody ResponseEntity<List<Book>> getBooksBatch(@RequestBody List<Integer> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            logger.error("Batch request must contain between 1 and {} IDs", MAX_BATCH_SIZE);
+            return ResponseEntity.badRequest().build();
+        }
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        logger.info("Fetching {} books by ID", uniqueIds.size());
+
+        Map<Integer, Book> booksById = new HashMap<>();
+        for (Book book : bookRepo.findAllById(uniqueIds)) {
+            booksById.put(book.getID(), book);
+        }
+        List<Book> result = new ArrayList<>(booksById.size());
+        for (Integer id : uniqueIds) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        logger.info("Fetched {} of {} requested books", result.size(), uniqueIds.size());
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/{id}/content")
     public @ResponseBody ResponseEntity<PagedContent> getBookContent(
             @PathVariable int id,
@@ -82,7 +227,7 @@ public class GetController {
             Optional<Book> bookOpt = bookRepo.findById(id);
             if (bookOpt.isPresent()) {
                 Book book = bookOpt.get();
-                PagedContent content = bookContentService.readBookContent(book.getFileName(), page, pageSize);
+                PagedContent content = bookContentService.readBookContent(book, page, pageSize);
                 return ResponseEntity.ok(content);
             } else {
                 logger.error("Book with ID: {} not found", id);
@@ -93,4 +238,195 @@ public class GetController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Returns an arbitrary byte range of a book's content as plain text. The range is
+     * taken from a single {@code Range: bytes=...} header when present, and from the
+     * {@code from} and {@code length} parameters otherwise. Only the requested bytes
+     * are read from cloud storage.
+     *
+     * @param id the ID of the book
+     * @param from the offset of the first byte, defaults to 0
+     * @param length the number of bytes, defaults to the rest of the content
+     * @param rangeHeader the HTTP {@code Range} header
+     * @return {@code 206 Partial Content} with the range, or {@code 200} if the range covers the whole content,
+     *         or {@code 400 Bad Request} if {@code length} is not positive
+     */
+    @GetMapping("/{id}/content/range")
+    public @ResponseBody ResponseEntity<byte[]> getBookContentRange(
+            @PathVariable int id,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Integer length,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader
+    ) {
+        logger.info("Fetching content range for book with ID: {}, from: {}, length: {}, range: {}", id, from, length, rangeHeader);
+        if (rangeHeader == null && length != null && length <= 0) {
+            logger.error("Invalid range length: {}", length);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Optional<Book> bookOpt = bookRepo.findById(id);
+            if (bookOpt.isEmpty()) {
+                logger.error("Book with ID: {} not found", id);
+                return ResponseEntity.notFound().build();
+            }
+            Book book = bookOpt.get();
+            long totalSize = bookContentService.contentLength(book);
+
+            long start;
+            long end; // inclusive
+            if (rangeHeader != null) {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() != 1) {
+                    return rangeNotSatisfiable(totalSize);
+                }
+                start = ranges.get(0).getRangeStart(totalSize);
+                end = ranges.get(0).getRangeEnd(totalSize);
+                if (start >= totalSize || end < start) {
+                    return rangeNotSatisfiable(totalSize);
+                }
+            } else {
+                start = from != null ? from : 0;
+                long requested = length != null ? length : totalSize - start;
+                if (start < 0 || requested < 0 || start >= totalSize) {
+                    return rangeNotSatisfiable(totalSize);
+                }
+                end = Math.min(start + requested, totalSize) - 1;
+            }
+            if (end - start + 1 > MAX_RANGE_LENGTH) {
+                end = start + MAX_RANGE_LENGTH - 1;
+            }
+
+            byte[] content = bookContentService.readRange(book.getFileName(), start, (int) (end - start + 1));
+            if (content.length == totalSize) {
+                return ResponseEntity.ok()
+                        .contentType(TEXT_UTF8)
+                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                        .body(content);
+            }
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .contentType(TEXT_UTF8)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + content.length - 1) + "/" + totalSize)
+                    .body(content);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid range for book with ID: {}. Error: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+        } catch (IOException e) {
+            logger.error("Failed to read book content for book with ID: {}. Error: {}", id, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private static ResponseEntity<byte[]> rangeNotSatisfiable(long totalSize) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + totalSize)
+                .build();
+    }
+
+    /**
+     * Returns a page of the default page size as plain text. When the client accepts
+     * gzip and the page was compressed at ingest, the stored compressed page is sent
+     * as-is instead of compressing it for every request.
+     *
+     * @param id the ID of the book
+     * @param page the page to read (0-based)
+     * @param acceptEncoding the HTTP {@code Accept-Encoding} header
+     * @return the page as plain text
+     */
+    @GetMapping("/{id}/content/text")
+    public @ResponseBody ResponseEntity<byte[]> getBookPageText(
+            @PathVariable int id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        logger.info("Fetching text of page {} for book with ID: {}", page, id);
+        try {
+            Optional<Book> bookOpt = bookRepo.findById(id);
+            if (bookOpt.isEmpty()) {
+                logger.error("Book with ID: {} not found", id);
+                return ResponseEntity.notFound().build();
+            }
+            Book book = bookOpt.get();
+            if (acceptsGzip(acceptEncoding)) {
+                byte[] compressed = bookContentService.readPrecompressedPage(book, page);
+                if (compressed != null) {
+                    return ResponseEntity.ok()
+                            .contentType(TEXT_UTF8)
+                            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                            .body(compressed);
+                }
+            }
+            return ResponseEntity.ok()
+                    .contentType(TEXT_UTF8)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(bookContentService.readPage(book, page));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid page {} for book with ID: {}", page, id);
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            logger.error("Failed to read book content for book with ID: {}. Error: {}", id, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Downloads the whole content of a book for offline reading, either as plain text or
+     * as a zip holding the text and its metadata.
+     *
+     * @param id the ID of the book
+     * @param format {@code txt} or {@code zip}
+     * @return the book as an attachment
+     */
+    @GetMapping("/{id}/download")
+    public ResponseEntity<StreamingResponseBody> downloadBook(
+            @PathVariable int id,
+            @RequestParam(defaultValue = "txt") String format
+    ) {
+        logger.info("Downloading book with ID: {} as {}", id, format);
+        BookDownloadService.Format downloadFormat;
+        try {
+            downloadFormat = BookDownloadService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.error("Unsupported download format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Book> bookOpt = bookRepo.findById(id);
+        if (bookOpt.isEmpty()) {
+            logger.error("Book with ID: {} not found", id);
+            return ResponseEntity.notFound().build();
+        }
+        Book book = bookOpt.get();
+        StreamingResponseBody body = out -> bookDownloadService.download(book, downloadFormat, out);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(BookDownloadService.downloadName(book, downloadFormat), StandardCharsets.UTF_8)
+                .build();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(downloadFormat == BookDownloadService.Format.ZIP ? MediaType.parseMediaType("application/zip") : TEXT_UTF8)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        if (downloadFormat == BookDownloadService.Format.TXT) {
+            // A read failing mid-stream cuts the body short, the length lets clients notice
+            try {
+                response.contentLength(bookContentService.contentLength(book));
+            } catch (IOException e) {
+                logger.error("Failed to read book content for book with ID: {}. Error: {}", id, e.getMessage());
+                return ResponseEntity.internalServerError().build();
+            }
+        }
+        return response.body(body);
+    }
 }
@@ -0,0 +1,82 @@
+package com.itp.DigLib.api.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.itp.DigLib.api.profiling.ContinuousRecording;
+import com.itp.DigLib.api.profiling.ProfilingInterceptor;
+
+@RestController
+@RequestMapping("/profiling")
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingController {
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingController.class);
+
+    @Autowired
+    private ContinuousRecording continuousRecording;
+
+    @Autowired
+    private ProfilingInterceptor profilingInterceptor;
+
+    /**
+     * Dumps the continuous JFR recording, for analysis with JDK Mission Control or
+     * {@code jfr print}. The recording keeps running.
+     *
+     * @return the recording as a JFR file
+     */
+    @GetMapping("/recording")
+    public ResponseEntity<StreamingResponseBody> getRecording() {
+        Path file;
+        long size;
+        try {
+            file = continuousRecording.dump();
+            size = Files.size(file);
+        } catch (IOException e) {
+            logger.error("Failed to dump JFR recording. Error: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("diglib-" + Instant.now().getEpochSecond() + ".jfr")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Returns the CPU time and allocations of every endpoint since startup, the most
+     * CPU intensive first.
+     *
+     * @return the per-endpoint totals
+     */
+    @GetMapping("/endpoints")
+    public @ResponseBody List<ProfilingInterceptor.EndpointProfile> getEndpointProfiles() {
+        return profilingInterceptor.getEndpointProfiles();
+    }
+}
@@ -1,11 +1,16 @@
 package com.itp.DigLib.api.controller;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,7 +22,10 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.ContentStats;
 import com.itp.DigLib.api.service.BookContentService;
+import com.itp.DigLib.api.service.CatalogueService;
+import com.itp.DigLib.api.service.ContentTranscoder;
 import com.itp.DigLib.db.BookRepository;
 
 
@@ -25,6 +33,7 @@ import com.itp.DigLib.db.BookRepository;
 @RequestMapping("/books")
 public class SetController {
     private static final Logger logger = LoggerFactory.getLogger(SetController.class);
+    private static final String TEXT_UTF8 = "text/plain; charset=utf-8";
 
     @Autowired
     private BookRepository bookRepo;
@@ -32,6 +41,16 @@ public class SetController {
     @Autowired
     private BookContentService bookContentService;
 
+    @Autowired
+    private CatalogueService catalogueService;
+
+    @Value("${book.precompress.enabled:true}")
+    private boolean precompressPages;
+
+    // Encoding of uploads that are neither declared nor valid UTF-8
+    @Value("${book.ingest.fallback-charset:windows-1252}")
+    private Charset fallbackCharset = ContentTranscoder.DEFAULT_FALLBACK;
+
     @PostMapping
     public @ResponseBody ResponseEntity<String> addNewBook(
             @RequestParam String title,
@@ -48,9 +67,23 @@ public class SetController {
             book.setGenre(genre);
             book.setIsbn(isbn);
             book.setYear(year);
-            
-            book = bookRepo.save(book);
-            bookContentService.storeFile(content, book.getFileName());
+            // Content is always stored as normalized UTF-8, whatever it was uploaded in
+            ContentTranscoder.Result transcoded = ContentTranscoder.transcode(
+                content.getBytes(), declaredCharset(content.getContentType()), fallbackCharset);
+            if (transcoded.isTranscoded()) {
+                logger.info("Converted content of book: {} from {} to normalized UTF-8", title, transcoded.getSourceEncoding());
+            }
+            byte[] bytes = transcoded.getContent();
+            book.setSourceEncoding(transcoded.getSourceEncoding().name());
+            book.setStats(ContentStats.of(bytes));
+            book.setContentHash(BookContentService.contentHash(bytes));
+
+            // Store the content first so that a saved row always has its content
+            bookContentService.storeContent(bytes, book.getFileName(), TEXT_UTF8);
+            if (precompressPages && bookContentService.storePrecompressedPages(bytes, book.getContentHash())) {
+                book.setPagePackPageSize(bookContentService.getDefaultPageSize());
+            }
+            book = catalogueService.addBook(book);
 
             
             logger.info("Added new book: {}", title);
@@ -62,6 +95,28 @@ public class SetController {
             logger.error("Illegal values provided for book: {}. Error: {}", title, e.getMessage());
             logger.error("values provided for: Title: {}. author: {}. genre: {}. isbn {}. year{} ", title, author, genre, isbn, year);
             return ResponseEntity.badRequest().body("Illegal values " + e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Book with ISBN: {} already exists", isbn);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A book with ISBN " + isbn + " already exists");
+        }
+    }
+
+    /**
+     * Returns the charset declared in the content type of an uploaded file.
+     *
+     * @param contentType the content type of the file
+     * @return the declared charset, or {@code null} if none or an unknown one is declared
+     */
+    static Charset declaredCharset(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            return MediaType.parseMediaType(contentType).getCharset();
+        } catch (IllegalArgumentException e) {
+            // Malformed content types and unknown charsets alike
+            logger.warn("Ignoring unknown charset in content type: {}", contentType);
+            return null;
         }
     }
 
@@ -70,8 +125,13 @@ public class SetController {
         Optional<Book> bookOpt = bookRepo.findById(id);
         if (bookOpt.isPresent()) {
             Book book = bookOpt.get();
-            bookContentService.deleteBookContent(book.getFileName());
-            bookRepo.deleteById(id);
+            catalogueService.deleteBook(book);
+            // Content addressed content is shared by every book with the same content
+            if (book.getContentHash() == null) {
+                bookContentService.deleteBookContent(book.getFileName());
+            } else if (!bookRepo.existsByFilename(book.getFileName())) {
+                bookContentService.deleteUnreferencedContent(book.getFileName());
+            }
             logger.info("Deleted book with ID: {}", id);
             return ResponseEntity.ok("Book deleted successfully");
         } else{
@@ -1,19 +1,35 @@
 package com.itp.DigLib.api.model;
 
+import java.io.Serializable;
 import java.nio.file.Paths;
+import java.time.Instant;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * Represents a book with a title, author, year, genre, ISBN, and file path.
  */
 @Entity // This tells Hibernate to make a table out of this class
-public class Book {
+@Table(indexes = {
+    @Index(name = "idx_book_isbn", columnList = "isbn", unique = true),
+    @Index(name = "idx_book_content_hash", columnList = "content_hash")
+})
+public class Book implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Id
     @GeneratedValue(strategy=GenerationType.AUTO)
     private int id;
@@ -23,6 +39,20 @@ public class Book {
     private String genre;
     private String isbn;
     private String filename;
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    @Embedded
+    private ContentStats stats;
+    @Column(name = "page_pack_page_size")
+    private Integer pagePackPageSize;
+    @Column(name = "source_encoding", length = 32)
+    private String sourceEncoding;
+    @CreationTimestamp
+    private Instant createdAt;
+    @UpdateTimestamp
+    private Instant updatedAt;
+    @Version
+    private long version;
 
     public Book(){}
 
@@ -56,7 +86,23 @@ public class Book {
             throw new IllegalArgumentException("Title cannot be empty");
         }
         this.title = title;
-        this.filename = String.valueOf(id) + "_" + toCamelCase(title) + ".txt";
+        if (contentHash == null) {
+            this.filename = String.valueOf(id) + "_" + toCamelCase(title) + ".txt";
+        }
+    }
+
+    /**
+     * Sets the SHA-256 hash of the book's content. Content is stored under its hash,
+     * so this also replaces the title based file name.
+     *
+     * @param contentHash the hex encoded SHA-256 hash of the content
+     */
+    public void setContentHash(String contentHash) {
+        if(contentHash == null || !contentHash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Content hash must be a hex encoded SHA-256 hash");
+        }
+        this.contentHash = contentHash;
+        this.filename = contentHash + ".txt";
     }
 
     /**
@@ -123,6 +169,98 @@ public class Book {
         return isbn;
     }
 
+    /**
+     * Returns the SHA-256 hash of the book's content, or {@code null} if the content
+     * was stored under a title based file name.
+     *
+     * @return the content hash of the book
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Returns the statistics of the book's content, or {@code null} if the content
+     * was ingested before statistics were recorded.
+     *
+     * @return the content statistics of the book
+     */
+    public ContentStats getStats() {
+        return stats;
+    }
+
+    public void setStats(ContentStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Returns when the book was added, or {@code null} for books added before this was recorded.
+     *
+     * @return when the book was added
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns when the book was last changed, or {@code null} for books added before this was recorded.
+     *
+     * @return when the book was last changed
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Returns the version of the book, incremented on every change.
+     *
+     * @return the version of the book
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns whether gzip compressed pages of the given size of the book's content are
+     * stored. Pages are compressed for the page size configured at upload, so a page
+     * pack can only be used while that page size is unchanged.
+     *
+     * @param pageSize the page size in characters
+     * @return {@code true} if precompressed pages of that size are available
+     */
+    public boolean isPrecompressed(int pageSize) {
+        return contentHash != null && pagePackPageSize != null && pagePackPageSize == pageSize;
+    }
+
+    /**
+     * Returns the page size of the book's precompressed pages, or {@code null} if none
+     * are stored.
+     *
+     * @return the page size in characters
+     */
+    @JsonIgnore
+    public Integer getPagePackPageSize() {
+        return pagePackPageSize;
+    }
+
+    public void setPagePackPageSize(Integer pagePackPageSize) {
+        this.pagePackPageSize = pagePackPageSize;
+    }
+
+    /**
+     * Returns the encoding the content was uploaded in before it was converted to UTF-8,
+     * or {@code null} for books added before this was recorded.
+     *
+     * @return the name of the source encoding
+     */
+    public String getSourceEncoding() {
+        return sourceEncoding;
+    }
+
+    public void setSourceEncoding(String sourceEncoding) {
+        this.sourceEncoding = sourceEncoding;
+    }
+
     /**
      * Returns the file path of the book.
      *
@@ -0,0 +1,51 @@
+package com.itp.DigLib.api.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+
+/**
+ * An entry in the catalogue change log. Entries are only ever appended, and their IDs
+ * are taken from the {@link ChangeSequence} and become visible in increasing order, so
+ * an ID doubles as a sync token: a client that has seen every change up to some ID only
+ * needs the changes after it.
+ */
+@Entity
+public class BookChange {
+    public enum Type { CREATED, DELETED }
+
+    @Id
+    private long id;
+    private int bookId;
+    @Enumerated(EnumType.STRING)
+    private Type type;
+    private Instant changedAt;
+
+    protected BookChange() {}
+
+    public BookChange(long id, int bookId, Type type) {
+        this.id = id;
+        this.bookId = bookId;
+        this.type = type;
+        this.changedAt = Instant.now();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
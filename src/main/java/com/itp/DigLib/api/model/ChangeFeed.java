@@ -0,0 +1,55 @@
+package com.itp.DigLib.api.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A batch of catalogue changes in the order they happened, together with the token to
+ * pass as {@code since} to fetch the changes after them.
+ */
+public class ChangeFeed {
+    private final List<Entry> changes;
+    private final String nextToken;
+    private final boolean hasMore;
+
+    public ChangeFeed(List<Entry> changes, String nextToken, boolean hasMore) {
+        this.changes = changes;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * A single change. Creations carry the book as it is now, or no book if it has been
+     * deleted since, in which case a tombstone follows later in the feed.
+     */
+    public static class Entry {
+        private final BookChange.Type type;
+        private final int bookId;
+        private final Instant changedAt;
+        private final Book book;
+
+        public Entry(BookChange change, Book book) {
+            this.type = change.getType();
+            this.bookId = change.getBookId();
+            this.changedAt = change.getChangedAt();
+            this.book = book;
+        }
+
+        public BookChange.Type getType() { return type; }
+        public int getBookId() { return bookId; }
+        public Instant getChangedAt() { return changedAt; }
+        public Book getBook() { return book; }
+    }
+
+    public List<Entry> getChanges() {
+        return changes;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
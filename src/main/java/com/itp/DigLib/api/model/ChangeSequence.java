@@ -0,0 +1,41 @@
+package com.itp.DigLib.api.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * The last ID handed out to a {@link BookChange}. Writers lock the single row of this
+ * table until they commit, so change IDs become visible in increasing order and a
+ * reader that has seen some ID can never later find a smaller one.
+ */
+@Entity
+public class ChangeSequence {
+    public static final int ID = 1;
+
+    @Id
+    private int id;
+    private long lastValue;
+
+    protected ChangeSequence() {}
+
+    public ChangeSequence(long lastValue) {
+        this.id = ID;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Reserves a block of consecutive change IDs.
+     *
+     * @param count the number of IDs to reserve
+     * @return the first reserved ID
+     */
+    public long reserve(int count) {
+        long first = lastValue + 1;
+        lastValue += count;
+        return first;
+    }
+
+    public long getLastValue() {
+        return lastValue;
+    }
+}
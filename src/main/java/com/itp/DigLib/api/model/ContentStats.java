@@ -0,0 +1,113 @@
+package com.itp.DigLib.api.model;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.persistence.Embeddable;
+
+/**
+ * Statistics about the content of a book, computed once when the content is ingested
+ * and stored alongside the {@link Book} so that listings and page responses never have
+ * to download the content to describe it.
+ */
+@Embeddable
+public class ContentStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int WORDS_PER_MINUTE = 183; // Average reading speed in words per minute
+    public static final int[] SUPPORTED_PAGE_SIZES = {500, 1000, 2000, 5000};
+
+    // Boxed so that rows ingested before statistics existed load as a null embeddable
+    private Long byteLength;        // Size of the stored content in bytes
+    private Integer charCount;      // Number of characters in the content
+    private Integer wordCount;      // Number of whitespace separated words
+    private Integer lineCount;      // Number of lines, counting a trailing unterminated line
+    private Integer readingMinutes; // Estimated reading time for the entire book
+
+    public ContentStats() {}
+
+    public ContentStats(long byteLength, int charCount, int wordCount, int lineCount) {
+        this.byteLength = byteLength;
+        this.charCount = charCount;
+        this.wordCount = wordCount;
+        this.lineCount = lineCount;
+        this.readingMinutes = wordCount / WORDS_PER_MINUTE;
+    }
+
+    /**
+     * Computes the statistics of UTF-8 encoded content in a single pass.
+     *
+     * @param content the raw content of the book
+     * @return the statistics of the content
+     */
+    public static ContentStats of(byte[] content) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        int words = 0;
+        int lines = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                lines++;
+            }
+            if (Character.isWhitespace(c)) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                words++;
+            }
+        }
+        if (!text.isEmpty() && text.charAt(text.length() - 1) != '\n') {
+            lines++;
+        }
+        return new ContentStats(content.length, text.codePointCount(0, text.length()), words, lines);
+    }
+
+    /**
+     * Returns the number of pages the content is split into for the given page size.
+     *
+     * @param pageSize the number of bytes per page
+     * @return the number of pages
+     */
+    public int getPageCount(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return (int) ((byteLength + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Returns the page count for each of the {@link #SUPPORTED_PAGE_SIZES}.
+     *
+     * @return a map from page size to page count
+     */
+    public Map<Integer, Integer> getPageCounts() {
+        Map<Integer, Integer> pageCounts = new LinkedHashMap<>();
+        for (int pageSize : SUPPORTED_PAGE_SIZES) {
+            pageCounts.put(pageSize, getPageCount(pageSize));
+        }
+        return pageCounts;
+    }
+
+    public long getByteLength() {
+        return byteLength;
+    }
+
+    public int getCharCount() {
+        return charCount;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getReadingMinutes() {
+        return readingMinutes;
+    }
+}
@@ -22,12 +22,23 @@ public class PagedContent {
         this.readingTime = calculateReadingTime();
     }
 
+    public PagedContent(String content, int pageNumber, int totalPages, int pageSize, int totalSize, int readingMinutes) {
+        this.content = content;
+        this.pageNumber = pageNumber;
+        this.totalPages = totalPages;
+        this.pageSize = pageSize;
+        this.totalSize = totalSize;
+        this.readingTime = formatReadingTime(readingMinutes);
+    }
+
     private String calculateReadingTime() {
         int words = this.totalSize / 5; // Average word length is 5 characters
-        int avgReadingTime = 183; // Average reading speed in words per minute
-        int totaltMinutes = words / avgReadingTime;
-        int hours = totaltMinutes / 60;
-        int minutes = totaltMinutes % 60;
+        return formatReadingTime(words / ContentStats.WORDS_PER_MINUTE);
+    }
+
+    private static String formatReadingTime(int totalMinutes) {
+        int hours = totalMinutes / 60;
+        int minutes = totalMinutes % 60;
         return String.format("%d hours, %d minutes", hours, minutes);
     }
     
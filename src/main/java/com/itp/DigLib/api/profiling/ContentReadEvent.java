@@ -0,0 +1,41 @@
+package com.itp.DigLib.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a read of book content, from local disk, the cache or cloud storage.
+ */
+@Name("diglib.ContentRead")
+@Label("Content Read")
+@Category({"DigLib", "Content"})
+@Description("A read of book content")
+@StackTrace(false)
+public class ContentReadEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("File")
+    public String filename;
+
+    @Label("Offset")
+    public long offset;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Local Disk")
+    @Description("Served from the local disk tier instead of the cache or cloud storage")
+    public boolean localDisk;
+
+    public ContentReadEvent(String operation, String filename, long offset) {
+        this.operation = operation;
+        this.filename = filename;
+        this.offset = offset;
+    }
+}
@@ -0,0 +1,38 @@
+package com.itp.DigLib.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for an upload of book content or its precompressed pages to cloud storage.
+ */
+@Name("diglib.ContentStore")
+@Label("Content Store")
+@Category({"DigLib", "Content"})
+@Description("An upload of book content to cloud storage")
+@StackTrace(false)
+public class ContentStoreEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("File")
+    public String filename;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Uploaded")
+    @Description("False when the content was already stored")
+    public boolean uploaded;
+
+    public ContentStoreEvent(String operation, String filename, long bytes) {
+        this.operation = operation;
+        this.filename = filename;
+        this.bytes = bytes;
+    }
+}
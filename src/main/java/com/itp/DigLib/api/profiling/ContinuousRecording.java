@@ -0,0 +1,75 @@
+package com.itp.DigLib.api.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * A JFR recording that runs for the lifetime of the application, keeping the most
+ * recent events within an age and size limit, so a recording of the moments before a
+ * latency regression can be dumped without restarting or redeploying. Events holding
+ * the environment, system properties or JVM arguments are never recorded, since those
+ * carry credentials.
+ */
+public class ContinuousRecording {
+    private static final Logger logger = LoggerFactory.getLogger(ContinuousRecording.class);
+    static final String[] SENSITIVE_EVENTS = {
+        "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation"
+    };
+
+    private final Recording recording;
+
+    /**
+     * @param settings the JFR settings to record with, {@code default} or {@code profile}
+     * @param maxAge how long events are kept
+     * @param maxSizeBytes how much event data is kept
+     * @param threshold the minimum duration of recorded content and repository events
+     */
+    public ContinuousRecording(String settings, Duration maxAge, long maxSizeBytes, Duration threshold)
+            throws IOException, ParseException {
+        recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("DigLib");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        for (String event : SENSITIVE_EVENTS) {
+            recording.disable(event);
+        }
+        recording.enable(ContentReadEvent.class).withThreshold(threshold);
+        recording.enable(ContentStoreEvent.class).withThreshold(threshold);
+        recording.enable(RepositoryCallEvent.class).withThreshold(threshold);
+        recording.enable(EndpointEvent.class).withThreshold(Duration.ZERO);
+        recording.start();
+        logger.info("Started continuous JFR recording with {} settings, keeping {} or {} bytes", settings, maxAge, maxSizeBytes);
+    }
+
+    /**
+     * Writes the events recorded so far to a new temporary file. The recording keeps running.
+     *
+     * @return the JFR file, which the caller must delete
+     * @throws IOException if the recording could not be written
+     */
+    public Path dump() throws IOException {
+        Path file = Files.createTempFile("diglib-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        logger.info("Dumped JFR recording to {} ({} bytes)", file, Files.size(file));
+        return file;
+    }
+
+    public void close() {
+        recording.close();
+    }
+}
@@ -0,0 +1,39 @@
+package com.itp.DigLib.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for a request, with the CPU time used and the memory allocated by the
+ * request thread while handling it.
+ */
+@Name("diglib.Endpoint")
+@Label("Endpoint")
+@Category({"DigLib", "Web"})
+@Description("A request handled by an endpoint")
+@StackTrace(false)
+public class EndpointEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    @Description("The HTTP method and path pattern of the endpoint")
+    public String endpoint;
+
+    @Label("Status")
+    public int status;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+
+    @Label("Async")
+    @Description("Only the part handled before an asynchronous response was started is measured")
+    public boolean async;
+}
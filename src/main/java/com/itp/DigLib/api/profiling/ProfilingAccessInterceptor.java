@@ -0,0 +1,44 @@
+package com.itp.DigLib.api.profiling;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects requests to the profiling endpoints with {@code 403 Forbidden} unless their
+ * {@code X-Profiling-Token} header holds the configured token. Every request is
+ * rejected while no token is configured.
+ */
+public class ProfilingAccessInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingAccessInterceptor.class);
+    static final String TOKEN_HEADER = "X-Profiling-Token";
+
+    private final byte[] token;
+
+    /**
+     * @param token the token that grants access, or an empty string to deny every request
+     */
+    public ProfilingAccessInterceptor(String token) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String presented = request.getHeader(TOKEN_HEADER);
+        // Compared in constant time, so the token cannot be guessed byte by byte
+        if (token != null && presented != null
+                && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        logger.warn("Rejected profiling request to {} from: {}", request.getRequestURI(), request.getRemoteAddr());
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        return false;
+    }
+}
@@ -0,0 +1,170 @@
+package com.itp.DigLib.api.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Measures the CPU time and memory allocated by the request thread for every request,
+ * emits them as an {@link EndpointEvent} and keeps running totals per endpoint.
+ *
+ * <p>Only the request thread is measured. Work handed to other threads, such as
+ * parallel storage reads or streamed responses, is attributed through the JFR
+ * recording instead.</p>
+ */
+public class ProfilingInterceptor implements AsyncHandlerInterceptor {
+    private static final String START_ATTRIBUTE = ProfilingInterceptor.class.getName() + ".start";
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final ConcurrentMap<String, Totals> totals = new ConcurrentHashMap<>();
+
+    public ProfilingInterceptor() {
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        if (threads.isThreadAllocatedMemorySupported() && !threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Per-endpoint totals since startup.
+     */
+    public static class EndpointProfile {
+        private final String endpoint;
+        private final long requests;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+        private final long wallNanos;
+
+        EndpointProfile(String endpoint, long requests, long cpuNanos, long allocatedBytes, long wallNanos) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.wallNanos = wallNanos;
+        }
+
+        public String getEndpoint() { return endpoint; }
+        public long getRequests() { return requests; }
+        public long getCpuNanos() { return cpuNanos; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public long getCpuNanosPerRequest() { return requests == 0 ? 0 : cpuNanos / requests; }
+        public long getAllocatedBytesPerRequest() { return requests == 0 ? 0 : allocatedBytes / requests; }
+
+        /** Bytes allocated per second of request handling time. */
+        public long getAllocationRate() {
+            return wallNanos == 0 ? 0 : (long) (allocatedBytes * 1e9 / wallNanos);
+        }
+    }
+
+    private static class Start {
+        final long thread = Thread.currentThread().getId();
+        final long wallNanos = System.nanoTime();
+        final EndpointEvent event = new EndpointEvent();
+        final long cpuNanos;
+        final long allocatedBytes;
+
+        Start(long cpuNanos, long allocatedBytes) {
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            event.begin();
+        }
+    }
+
+    private static class Totals {
+        final LongAdder requests = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, new Start(cpuTime(), allocatedBytes()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        record(request, response, true);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(request, response, false);
+    }
+
+    /**
+     * Returns the totals of every endpoint, the most CPU intensive first.
+     *
+     * @return the per-endpoint totals
+     */
+    public List<EndpointProfile> getEndpointProfiles() {
+        List<EndpointProfile> profiles = new ArrayList<>(totals.size());
+        totals.forEach((endpoint, total) -> profiles.add(new EndpointProfile(endpoint,
+            total.requests.sum(), total.cpuNanos.sum(), total.allocatedBytes.sum(), total.wallNanos.sum())));
+        profiles.sort(Comparator.comparingLong(EndpointProfile::getCpuNanos).reversed());
+        return profiles;
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, boolean async) {
+        Object attribute = request.getAttribute(START_ATTRIBUTE);
+        // The thread counters are only meaningful on the thread that took the start sample
+        if (!(attribute instanceof Start start) || start.thread != Thread.currentThread().getId()) {
+            return;
+        }
+        request.removeAttribute(START_ATTRIBUTE);
+        long cpuNanos = Math.max(0, cpuTime() - start.cpuNanos);
+        long allocated = Math.max(0, allocatedBytes() - start.allocatedBytes);
+        long wallNanos = System.nanoTime() - start.wallNanos;
+        String endpoint = endpoint(request);
+
+        Totals total = totals.computeIfAbsent(endpoint, key -> new Totals());
+        total.requests.increment();
+        total.cpuNanos.add(cpuNanos);
+        total.allocatedBytes.add(allocated);
+        total.wallNanos.add(wallNanos);
+
+        EndpointEvent event = start.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.status = response.getStatus();
+            event.cpuTime = cpuNanos;
+            event.allocated = allocated;
+            event.async = async;
+            event.commit();
+        }
+    }
+
+    /**
+     * Names a request by its method and the path pattern of its handler, so that
+     * requests for different books add up to one endpoint.
+     */
+    static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "(unmapped)");
+    }
+
+    private long cpuTime() {
+        return threads.isThreadCpuTimeEnabled() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private long allocatedBytes() {
+        return threads.isThreadAllocatedMemoryEnabled() ? threads.getCurrentThreadAllocatedBytes() : 0;
+    }
+}
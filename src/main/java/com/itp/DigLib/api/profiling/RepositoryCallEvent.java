@@ -0,0 +1,31 @@
+package com.itp.DigLib.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a call to a Spring Data repository, including cache hits in front of it.
+ */
+@Name("diglib.RepositoryCall")
+@Label("Repository Call")
+@Category({"DigLib", "Database"})
+@Description("A call to a Spring Data repository")
+@StackTrace(false)
+public class RepositoryCallEvent extends jdk.jfr.Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Failed")
+    public boolean failed;
+
+    public RepositoryCallEvent(String repository, String method) {
+        this.repository = repository;
+        this.method = method;
+    }
+}
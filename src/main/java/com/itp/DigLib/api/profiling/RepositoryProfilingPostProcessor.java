@@ -0,0 +1,55 @@
+package com.itp.DigLib.api.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Adds a {@link RepositoryCallEvent} around every call to a Spring Data repository.
+ * Repositories are already proxies, so the advice is added to the existing proxy in
+ * front of its other advice, and the events include time spent in the cache.
+ */
+public class RepositoryProfilingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository && bean instanceof Advised advised && !advised.isFrozen()) {
+            Class<?> repository = repositoryInterface(advised);
+            advised.addAdvice(0, new RepositoryCallInterceptor(repository.getSimpleName()));
+        }
+        return bean;
+    }
+
+    private static Class<?> repositoryInterface(Advised advised) {
+        for (Class<?> type : advised.getProxiedInterfaces()) {
+            if (Repository.class.isAssignableFrom(type) && type != Repository.class) {
+                return type;
+            }
+        }
+        return Repository.class;
+    }
+
+    private static class RepositoryCallInterceptor implements MethodInterceptor {
+        private final String repository;
+
+        RepositoryCallInterceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RepositoryCallEvent event = new RepositoryCallEvent(repository, invocation.getMethod().getName());
+            event.begin();
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                event.failed = true;
+                throw e;
+            } finally {
+                event.commit();
+            }
+        }
+    }
+}
@@ -1,90 +1,954 @@
 package com.itp.DigLib.api.service;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageBatchResult;
+import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.ContentStats;
 import com.itp.DigLib.api.model.PagedContent;
+import com.itp.DigLib.api.profiling.ContentReadEvent;
+import com.itp.DigLib.api.profiling.ContentStoreEvent;
 
 @Service
 public class BookContentService {
     private static final Logger logger = LoggerFactory.getLogger(BookContentService.class);
+    // Content addressed blobs never change, so clients and CDNs may cache them forever
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}\\.txt");
     
     private final Storage storage;
+    private final ContentCache contentCache;
+    private final LocalDiskTier localTier;  // Hot content on local disk, null when disabled
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService executor;
+    private final LatencyTracker readLatency = new LatencyTracker(128, 0.95, TimeUnit.MILLISECONDS.toNanos(100));
     private final String bucketName;
     private final int defaultPageSize;
+    private final Semaphore fetchPermits;   // Bulkhead limiting concurrent storage fetches
+    private final long fetchAcquireTimeoutMs;
+    private final boolean hedgedReads;
+    private final long hedgeMinDelayNanos;
+    private final long deadlineMs;
+    private final long reclaimGraceMillis;
+
+    /**
+     * Creates a service with the default storage client and settings, only for tests.
+     */
+    BookContentService(String bucketName, int pageSize) {
+        this(StorageOptions.getDefaultInstance().getService(), new LocalContentCache(64L * 1024 * 1024),
+            null, new CircuitBreaker("cloud-storage", 5, 30000), newDefaultExecutor(),
+            bucketName, pageSize, 64, 200, false, 20, 10000, 60);
+    }
 
+    /**
+     * The storage client is injected lazily, so credentials are only resolved when
+     * cloud storage is first used instead of during startup.
+     */
+    @Autowired
     public BookContentService(
+            @Lazy Storage storage,
+            ContentCache contentCache,
+            @Nullable LocalDiskTier localDiskTier,
+            CircuitBreaker storageCircuitBreaker,
+            @Qualifier("storageExecutor") ExecutorService executor,
             @Value("${gcp.bucket.name}") String bucketName,
-            @Value("${book.page.size:1000}") int pageSize
+            @Value("${book.page.size:1000}") int pageSize,
+            @Value("${storage.max-concurrent-fetches:64}") int maxConcurrentFetches,
+            @Value("${storage.fetch-acquire-timeout-ms:200}") long fetchAcquireTimeoutMs,
+            @Value("${storage.hedge.enabled:false}") boolean hedgedReads,
+            @Value("${storage.hedge.min-delay-ms:20}") long hedgeMinDelayMs,
+            @Value("${storage.deadline-ms:10000}") long deadlineMs,
+            @Value("${scrubber.grace-minutes:60}") long reclaimGraceMinutes
     ) {
-        this.storage = StorageOptions.getDefaultInstance().getService();
+        this.storage = storage;
+        this.contentCache = contentCache;
+        this.localTier = localDiskTier;
+        this.circuitBreaker = storageCircuitBreaker;
+        this.executor = executor;
         this.bucketName = bucketName;
         this.defaultPageSize = pageSize;
+        this.fetchPermits = new Semaphore(maxConcurrentFetches);
+        this.fetchAcquireTimeoutMs = fetchAcquireTimeoutMs;
+        this.hedgedReads = hedgedReads;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs);
+        this.deadlineMs = deadlineMs;
+        this.reclaimGraceMillis = TimeUnit.MINUTES.toMillis(reclaimGraceMinutes);
         logger.info("Initialized cloud storage with bucket: {}", bucketName);
     }
 
+    private static ExecutorService newDefaultExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "storage-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a storage fetch slot, waiting at most the configured timeout.
+     *
+     * @throws StorageBusyException if no slot freed up in time
+     */
+    private void acquireFetchPermit() {
+        try {
+            if (fetchPermits.tryAcquire(fetchAcquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.warn("All cloud storage fetch slots are busy, rejecting fetch");
+        throw new StorageBusyException("Too many concurrent cloud storage fetches");
+    }
+
+    /**
+     * Makes a cloud storage call behind the circuit breaker. Client errors such as a
+     * missing blob or a failed precondition do not count as failures.
+     *
+     * @throws StorageUnavailableException if the circuit breaker is open
+     */
+    private <T> T callStorage(Supplier<T> call) {
+        if (!circuitBreaker.allowRequest()) {
+            throw new StorageUnavailableException("Cloud storage is unavailable");
+        }
+        try {
+            T result = call.get();
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (StorageException e) {
+            if (e.getCode() >= 400 && e.getCode() < 500) {
+                circuitBreaker.recordSuccess();
+            } else {
+                circuitBreaker.recordFailure();
+            }
+            throw e;
+        }
+    }
+
     public String storeFile(MultipartFile file, String filename) throws IOException {
         BlobId blobId = BlobId.of(bucketName, "books/" + filename);
         BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
                 .setContentType(file.getContentType())
                 .build();
         
+        ContentStoreEvent event = new ContentStoreEvent("storeFile", filename, file.getSize());
+        event.begin();
         try {
-            storage.create(blobInfo, file.getBytes());
+            byte[] content = file.getBytes();
+            callStorage(() -> storage.create(blobInfo, content));
+            event.uploaded = true;
             logger.info("Successfully stored file in cloud storage: {}", filename);
             return filename;
         } catch (IOException e) {
             logger.error("Failed to store file in cloud storage: {}", e.getMessage());
             throw new IOException("Failed to store file in cloud storage", e);
+        } finally {
+            event.commit();
         }
     }
 
-    public PagedContent readBookContent(String filename, int pageNumber, Integer pageSize) throws IOException {
+    /**
+     * Computes the hex encoded SHA-256 hash used as the storage key of content.
+     *
+     * @param content the content to hash
+     * @return the hex encoded SHA-256 hash of the content
+     */
+    public static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Stores content under a content addressed file name unless a blob with that name
+     * already exists. The existence check is done by cloud storage as part of the
+     * upload, so identical uploads are deduplicated without an extra round-trip.
+     *
+     * @param content the content to store
+     * @param filename the content addressed file name, see {@link Book#setContentHash}
+     * @param contentType the content type of the content
+     * @return {@code true} if the content was uploaded, {@code false} if it was already stored
+     * @throws IOException if the content could not be stored
+     */
+    public boolean storeContent(byte[] content, String filename, String contentType) throws IOException {
         BlobId blobId = BlobId.of(bucketName, "books/" + filename);
-        Blob blob = storage.get(blobId);
-        
+        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
+                .setContentType(contentType)
+                .setCacheControl(IMMUTABLE_CACHE_CONTROL)
+                .build();
+
+        ContentStoreEvent event = new ContentStoreEvent("storeContent", filename, content.length);
+        event.begin();
+        try {
+            callStorage(() -> storage.create(blobInfo, content, Storage.BlobTargetOption.doesNotExist()));
+            event.uploaded = true;
+            logger.info("Successfully stored file in cloud storage: {}", filename);
+            return true;
+        } catch (StorageException e) {
+            if (e.getCode() == 412) {
+                logger.info("File already stored in cloud storage, skipping upload: {}", filename);
+                touch(blobId);
+                return false;
+            }
+            logger.error("Failed to store file in cloud storage: {}", e.getMessage());
+            throw new IOException("Failed to store file in cloud storage", e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Bumps the update time and metageneration of a stored blob that a new book is about
+     * to reference, so that neither the storage scrubber nor the delete of another book
+     * sharing the content deletes it before the book's row is committed. See
+     * {@link #deleteUnreferencedContent}.
+     *
+     * @throws IOException if the blob could not be touched, the upload must then fail
+     */
+    private void touch(BlobId blobId) throws IOException {
+        try {
+            callStorage(() -> storage.update(BlobInfo.newBuilder(blobId)
+                    .setMetadata(Map.of("referencedAt", Instant.now().toString()))
+                    .build()));
+        } catch (StorageException | StorageUnavailableException e) {
+            logger.error("Failed to touch {} in cloud storage: {}", blobId.getName(), e.getMessage());
+            throw new IOException("Failed to store file in cloud storage", e);
+        }
+    }
+
+    /**
+     * Stores a {@link PagePack} of content addressed content with every page of the
+     * default page size gzip compressed, so pages can later be served without
+     * compressing them per request. Failures are logged and otherwise ignored, since
+     * pages can always be served uncompressed.
+     *
+     * @param content the content of the book
+     * @param contentHash the content hash of the book
+     * @return {@code true} if the page pack is stored, either now or by an earlier upload
+     */
+    public boolean storePrecompressedPages(byte[] content, String contentHash) {
+        BlobId blobId = BlobId.of(bucketName, pagePackName(contentHash, defaultPageSize));
+        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
+                .setContentType("application/octet-stream")
+                .setCacheControl(IMMUTABLE_CACHE_CONTROL)
+                .build();
+        ContentStoreEvent event = new ContentStoreEvent("storePrecompressedPages", blobId.getName(), content.length);
+        event.begin();
+        try {
+            byte[] pagePack = PagePack.build(content, defaultPageSize);
+            callStorage(() -> storage.create(blobInfo, pagePack, Storage.BlobTargetOption.doesNotExist()));
+            event.uploaded = true;
+            logger.info("Stored precompressed pages in cloud storage: {}", blobId.getName());
+            return true;
+        } catch (StorageException e) {
+            if (e.getCode() == 412) {
+                // Touched like the content, so it is not reclaimed while the book is added
+                try {
+                    touch(blobId);
+                    return true;
+                } catch (IOException touchFailure) {
+                    return false;
+                }
+            }
+            logger.warn("Failed to store precompressed pages in cloud storage: {}", e.getMessage());
+            return false;
+        } catch (StorageUnavailableException e) {
+            logger.warn("Not storing precompressed pages, cloud storage is unavailable");
+            return false;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Reads a gzip compressed page of the default page size from a book's page pack.
+     *
+     * @param book the book to read
+     * @param pageNumber the page to read (0-based)
+     * @return the gzip compressed page, or {@code null} if the book has no page pack of the
+     *         default page size
+     * @throws IllegalArgumentException if the page number is invalid
+     * @throws IOException if the page pack could not be read
+     */
+    public byte[] readPrecompressedPage(Book book, int pageNumber) throws IOException {
+        if (!book.isPrecompressed(defaultPageSize) || book.getStats() == null) {
+            return null;
+        }
+        if (pageNumber < 0 || pageNumber >= book.getStats().getPageCount(defaultPageSize)) {
+            throw new IllegalArgumentException("Invalid page number");
+        }
+        String objectName = pagePackName(book.getContentHash(), defaultPageSize);
+        ByteBuffer offsets = ByteBuffer.wrap(readObjectRange(objectName, true, PagePack.offsetPosition(pageNumber), 2 * Integer.BYTES));
+        int start = offsets.getInt();
+        int end = offsets.getInt();
+        return readObjectRange(objectName, true, start, end - start);
+    }
+
+    /**
+     * Returns the name of the page pack of content for a page size.
+     *
+     * @param contentHash the content hash of the content
+     * @param pageSize the page size of the page pack
+     * @return the object name of the page pack
+     */
+    public static String pagePackName(String contentHash, int pageSize) {
+        return pagePackPrefix(contentHash) + pageSize + ".gz";
+    }
+
+    private static String pagePackPrefix(String contentHash) {
+        return "pages/" + contentHash + ".";
+    }
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public PagedContent readBookContent(String filename, int pageNumber, Integer pageSize) throws IOException {
+        ContentReadEvent event = new ContentReadEvent("readBookContent", filename, 0);
+        event.begin();
+        try {
+            BlobId blobId = BlobId.of(bucketName, "books/" + filename);
+            byte[] content;
+            acquireFetchPermit();
+            try {
+                content = callStorage(() -> {
+                    Blob blob = storage.get(blobId);
+                    return blob != null ? blob.getContent() : null;
+                });
+            } catch (StorageException e) {
+                logger.error("Failed to read file from cloud storage: {}", e.getMessage());
+                throw new IOException("Failed to read file from cloud storage", e);
+            } finally {
+                fetchPermits.release();
+            }
+            if (content == null) {
+                logger.error("File not found in cloud storage: {}", filename);
+                throw new IOException("File not found in cloud storage");
+            }
+            int charactersPerPage = pageSize != null ? pageSize : defaultPageSize;
+            int totalSize = content.length;
+            int totalPages = (totalSize + charactersPerPage - 1) / charactersPerPage;
+
+            if (pageNumber < 0 || pageNumber >= totalPages) {
+                throw new IllegalArgumentException("Invalid page number");
+            }
+
+            int startPosition = Utf8Pages.align(content, pageNumber * charactersPerPage);
+            int endPosition = Utf8Pages.align(content, Math.min(totalSize, (pageNumber + 1) * charactersPerPage));
+            int length = endPosition - startPosition;
+
+            event.offset = startPosition;
+            event.bytes = length;
+            byte[] pageContent = Arrays.copyOfRange(content, startPosition, endPosition);
+
+            return new PagedContent(
+                new String(pageContent, StandardCharsets.UTF_8),
+                pageNumber,
+                totalPages,
+                length,
+                totalSize
+            );
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Reads a page of a book's content. When the book has stored {@link ContentStats},
+     * only the bytes of the requested page are fetched from cloud storage and the
+     * pagination metadata is derived from the statistics. Page boundaries are aligned to
+     * UTF-8 characters, see {@link Utf8Pages}.
+     *
+     * @param book the book to read
+     * @param pageNumber the page to read (0-based)
+     * @param pageSize the number of bytes per page, or {@code null} for the default
+     * @return the requested page
+     * @throws IOException if the content could not be read
+     */
+    public PagedContent readBookContent(Book book, int pageNumber, Integer pageSize) throws IOException {
+        ContentStats stats = book.getStats();
+        if (stats == null) {
+            return readBookContent(book.getFileName(), pageNumber, pageSize);
+        }
+
+        ContentReadEvent event = new ContentReadEvent("readBookContent", book.getFileName(), 0);
+        event.begin();
+        try {
+            int charactersPerPage = pageSize != null ? pageSize : defaultPageSize;
+            int totalSize = (int) stats.getByteLength();
+            int totalPages = stats.getPageCount(charactersPerPage);
+
+            if (pageNumber < 0 || pageNumber >= totalPages) {
+                throw new IllegalArgumentException("Invalid page number");
+            }
+
+            long startPosition = (long) pageNumber * charactersPerPage;
+            event.offset = startPosition;
+            byte[] pageContent = readAlignedPage(book.getFileName(), startPosition,
+                    Math.min(totalSize, startPosition + charactersPerPage), totalSize);
+            event.bytes = pageContent.length;
+
+            return new PagedContent(
+                new String(pageContent, StandardCharsets.UTF_8),
+                pageNumber,
+                totalPages,
+                pageContent.length,
+                totalSize,
+                stats.getReadingMinutes()
+            );
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Reads a page of the default page size as the stored UTF-8 bytes, without decoding
+     * them. Only books whose content was converted to UTF-8 at ingest and has stored
+     * {@link ContentStats} are read with a single ranged read; older books are decoded
+     * and re-encoded.
+     *
+     * @param book the book to read
+     * @param pageNumber the page to read (0-based)
+     * @return the UTF-8 bytes of the page
+     * @throws IOException if the content could not be read
+     */
+    public byte[] readPage(Book book, int pageNumber) throws IOException {
+        ContentStats stats = book.getStats();
+        if (stats == null || book.getSourceEncoding() == null) {
+            return readBookContent(book, pageNumber, null).getContent().getBytes(StandardCharsets.UTF_8);
+        }
+        if (pageNumber < 0 || pageNumber >= stats.getPageCount(defaultPageSize)) {
+            throw new IllegalArgumentException("Invalid page number");
+        }
+        long startPosition = (long) pageNumber * defaultPageSize;
+        return readAlignedPage(book.getFileName(), startPosition,
+                Math.min(stats.getByteLength(), startPosition + defaultPageSize), stats.getByteLength());
+    }
+
+    /**
+     * Reads the page spanning the nominal byte range {@code [start, end)}, with both ends
+     * aligned to UTF-8 characters by {@link Utf8Pages}. The few bytes needed to align the
+     * ends are read along with the page, so this is still a single ranged read.
+     */
+    private byte[] readAlignedPage(String filename, long start, long end, long totalSize) throws IOException {
+        long windowStart = Math.max(0, start - Utf8Pages.MAX_BACK_OFF);
+        long windowEnd = Math.min(totalSize, end + 1);
+        byte[] window = readRange(filename, windowStart, (int) (windowEnd - windowStart));
+        int from = Utf8Pages.align(window, (int) Math.min(window.length, start - windowStart));
+        int to = Utf8Pages.align(window, (int) Math.min(window.length, end - windowStart));
+        return Arrays.copyOfRange(window, from, to);
+    }
+
+    /**
+     * Returns the size in bytes of a book's content, taken from its stored
+     * {@link ContentStats} when available and from cloud storage metadata otherwise.
+     *
+     * @param book the book
+     * @return the size of the content in bytes
+     * @throws IOException if the content does not exist or could not be looked up
+     * @throws StorageUnavailableException if cloud storage is unavailable
+     * @throws StorageBusyException if too many cloud storage fetches are in flight
+     */
+    public long contentLength(Book book) throws IOException {
+        if (book.getStats() != null) {
+            return book.getStats().getByteLength();
+        }
+        BlobId blobId = BlobId.of(bucketName, "books/" + book.getFileName());
+        Blob blob;
+        acquireFetchPermit();
+        try {
+            blob = callStorage(() -> storage.get(blobId));
+        } catch (StorageException e) {
+            logger.error("Failed to read file from cloud storage: {}", e.getMessage());
+            throw new IOException("Failed to read file from cloud storage", e);
+        } finally {
+            fetchPermits.release();
+        }
         if (blob == null) {
-            logger.error("File not found in cloud storage: {}", filename);
+            logger.error("File not found in cloud storage: {}", book.getFileName());
             throw new IOException("File not found in cloud storage");
         }
+        return blob.getSize();
+    }
 
-        byte[] content = blob.getContent();
-        int charactersPerPage = pageSize != null ? pageSize : defaultPageSize;
-        int totalSize = content.length;
-        int totalPages = (totalSize + charactersPerPage - 1) / charactersPerPage;
+    /**
+     * Reads up to {@code length} bytes of a file starting at {@code from}, fetching
+     * only that range from cloud storage.
+     *
+     * <p>Content addressed files never change. Popular ones are served from the
+     * {@link LocalDiskTier} when it is enabled, and other ranges from the
+     * {@link ContentCache} when possible. While the circuit breaker is open only cached
+     * ranges are served. With hedged reads enabled, a second read is issued when the first
+     * has not finished within the recent p95 read latency, and the first to finish wins.</p>
+     *
+     * @param filename the name of the file
+     * @param from the offset of the first byte to read
+     * @param length the maximum number of bytes to read
+     * @return the bytes read, shorter than {@code length} if the file ends first
+     * @throws IOException if the file does not exist or could not be read
+     * @throws StorageUnavailableException if the range is not cached and cloud storage is unavailable
+     */
+    public byte[] readRange(String filename, long from, int length) throws IOException {
+        return readRange(filename, from, length, true);
+    }
 
-        if (pageNumber < 0 || pageNumber >= totalPages) {
-            throw new IllegalArgumentException("Invalid page number");
+    /**
+     * Reads a range like {@link #readRange(String, long, int)}, optionally without using
+     * the content cache or counting the read towards local disk popularity. Bulk reads
+     * such as downloads pass {@code false}, so they do not evict the hot ranges of other
+     * readers.
+     *
+     * @param filename the name of the file
+     * @param from the offset of the first byte to read
+     * @param length the maximum number of bytes to read
+     * @param cacheable whether to use the content cache and count the read
+     * @return the bytes read, shorter than {@code length} if the file ends first
+     * @throws IOException if the file does not exist or could not be read
+     */
+    public byte[] readRange(String filename, long from, int length, boolean cacheable) throws IOException {
+        ContentReadEvent event = new ContentReadEvent("readRange", filename, from);
+        event.begin();
+        try {
+            boolean contentAddressed = CONTENT_ADDRESSED.matcher(filename).matches();
+            if (contentAddressed && localTier != null) {
+                byte[] local = cacheable ? localTier.read(filename, from, length) : localTier.peek(filename, from, length);
+                if (local != null) {
+                    event.localDisk = true;
+                    event.bytes = local.length;
+                    return local;
+                }
+                if (cacheable && localTier.wantsAdmission(filename)) {
+                    executor.execute(() -> loadIntoLocalTier(filename));
+                }
+            }
+            byte[] content = readObjectRange("books/" + filename, contentAddressed && cacheable, from, length);
+            event.bytes = content.length;
+            return content;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Copies a popular file from cloud storage onto local disk in the background. The
+     * copy is skipped rather than queued when cloud storage is busy or unavailable.
+     */
+    private void loadIntoLocalTier(String filename) {
+        try {
+            localTier.admit(filename, target -> downloadVerified(filename, target));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to copy {} to local disk: {}", filename, e.getMessage());
         }
+    }
 
-        int startPosition = pageNumber * charactersPerPage;
-        int length = Math.min(charactersPerPage, totalSize - startPosition);
-        
-        byte[] pageContent = new byte[length];
-        System.arraycopy(content, startPosition, pageContent, 0, length);
+    private void downloadVerified(String filename, Path target) throws IOException {
+        if (!circuitBreaker.allowRequest()) {
+            throw new StorageUnavailableException("Cloud storage is unavailable");
+        }
+        if (!fetchPermits.tryAcquire()) {
+            throw new StorageBusyException("Too many concurrent cloud storage fetches");
+        }
+        try {
+            Blob blob = storage.get(BlobId.of(bucketName, "books/" + filename));
+            if (blob == null) {
+                circuitBreaker.recordSuccess();
+                throw new IOException("File not found in cloud storage");
+            }
+            blob.downloadTo(target);
+            circuitBreaker.recordSuccess();
+        } catch (StorageException e) {
+            circuitBreaker.recordFailure();
+            throw new IOException("Failed to read file from cloud storage", e);
+        } finally {
+            fetchPermits.release();
+        }
+        // The file name is the hash of the content, never serve a corrupt copy
+        String expected = filename.substring(0, filename.length() - ".txt".length());
+        if (!expected.equals(contentHash(target))) {
+            throw new IOException("Content hash mismatch for " + filename);
+        }
+    }
+
+    private static String contentHash(Path file) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private byte[] readObjectRange(String objectName, boolean cacheable, long from, int length) throws IOException {
+        String cacheKey = objectName + ":" + from + ":" + length;
+        if (cacheable) {
+            byte[] cached = contentCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (!circuitBreaker.allowRequest()) {
+            logger.warn("Cloud storage circuit breaker is open, cannot serve uncached file: {}", objectName);
+            throw new StorageUnavailableException("Cloud storage is unavailable");
+        }
+
+        byte[] content = hedgedReads ? hedgedFetchRange(objectName, from, length) : fetchRange(objectName, from, length, () -> false);
+        if (cacheable) {
+            contentCache.put(cacheKey, content);
+        }
+        return content;
+    }
+
+    private byte[] hedgedFetchRange(String objectName, long from, int length) throws IOException {
+        // Set once a read won or the deadline passed, so the other read stops early
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            return hedgedFetchRange(objectName, from, length, done);
+        } finally {
+            done.set(true);
+        }
+    }
+
+    private byte[] hedgedFetchRange(String objectName, long from, int length, AtomicBoolean done) throws IOException {
+        CompletableFuture<byte[]> primary = fetchRangeAsync(objectName, from, length, done);
+        long hedgeDelayNanos = Math.max(hedgeMinDelayNanos, readLatency.getNanos());
+        try {
+            return primary.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Fall through and hedge
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading from cloud storage", e);
+        }
+
+        if (fetchPermits.availablePermits() == 0) {
+            // No spare capacity to hedge, wait for the primary read
+            return awaitRead(primary);
+        }
+        logger.info("Hedging read of {} after {} ms", objectName, TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+        CompletableFuture<byte[]> hedge = fetchRangeAsync(objectName, from, length, done);
+
+        CompletableFuture<byte[]> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<byte[]> attempt : List.of(primary, hedge)) {
+            attempt.whenComplete((content, error) -> {
+                if (error == null) {
+                    first.complete(content);
+                } else if (failures.incrementAndGet() == 2) {
+                    first.completeExceptionally(error);
+                }
+            });
+        }
+        return awaitRead(first);
+    }
+
+    private CompletableFuture<byte[]> fetchRangeAsync(String objectName, long from, int length, AtomicBoolean cancelled) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchRange(objectName, from, length, cancelled::get);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private byte[] awaitRead(CompletableFuture<byte[]> read) throws IOException {
+        try {
+            return read.get(deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            logger.error("Read from cloud storage exceeded deadline of {} ms", deadlineMs);
+            throw new IOException("Read from cloud storage timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading from cloud storage", e);
+        }
+    }
+
+    private static IOException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException("Failed to read file from cloud storage", cause);
+    }
+
+    /**
+     * Reads a range of an object, giving up between chunks once {@code cancelled} returns
+     * {@code true} so that a read that lost a hedge frees its fetch slot early.
+     */
+    private byte[] fetchRange(String objectName, long from, int length, BooleanSupplier cancelled) throws IOException {
+        BlobId blobId = BlobId.of(bucketName, objectName);
+        acquireFetchPermit();
+        long start = System.nanoTime();
+        try (ReadChannel reader = storage.reader(blobId)) {
+            reader.seek(from);
+            reader.limit(from + length);
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining() && !cancelled.getAsBoolean() && reader.read(buffer) >= 0) {
+                // keep reading until the range is filled or the file ends
+            }
+            if (buffer.hasRemaining() && cancelled.getAsBoolean()) {
+                throw new CancellationException("Read of " + objectName + " was cancelled");
+            }
+            circuitBreaker.recordSuccess();
+            readLatency.record(System.nanoTime() - start);
+            return buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+        } catch (StorageException e) {
+            if (e.getCode() == 404) {
+                circuitBreaker.recordSuccess();
+                logger.error("File not found in cloud storage: {}", objectName);
+                throw new IOException("File not found in cloud storage", e);
+            }
+            recordReadFailure();
+            logger.error("Failed to read file from cloud storage: {}", e.getMessage());
+            throw new IOException("Failed to read file from cloud storage", e);
+        } catch (IOException e) {
+            recordReadFailure();
+            logger.error("Failed to read file from cloud storage: {}", e.getMessage());
+            throw e;
+        } finally {
+            fetchPermits.release();
+        }
+    }
+
+    private void recordReadFailure() {
+        // A read interrupted because its caller gave up says nothing about cloud storage
+        if (!Thread.currentThread().isInterrupted()) {
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    /**
+     * Lists the stored book content in name order. Pages of {@code pageSize} blobs are
+     * fetched lazily while iterating, so the listing is never held in memory at once.
+     *
+     * @param pageSize the number of blobs fetched per listing request
+     * @return the stored book content
+     */
+    public Iterable<Blob> listBookContent(int pageSize) {
+        return storage.list(bucketName,
+                Storage.BlobListOption.prefix("books/"),
+                Storage.BlobListOption.pageSize(pageSize))
+            .iterateAll();
+    }
+
+    /**
+     * Lists the stored page packs in name order, fetched lazily like {@link #listBookContent}.
+     *
+     * @param pageSize the number of blobs fetched per listing request
+     * @return the stored page packs
+     */
+    public Iterable<Blob> listPagePacks(int pageSize) {
+        return storage.list(bucketName,
+                Storage.BlobListOption.prefix("pages/"),
+                Storage.BlobListOption.pageSize(pageSize))
+            .iterateAll();
+    }
+
+    /**
+     * Returns the file name of the content a blob returned by {@link #listBookContent} or
+     * {@link #listPagePacks} belongs to.
+     *
+     * @param blob the blob
+     * @return the file name of the content
+     */
+    public static String filenameOf(Blob blob) {
+        String name = blob.getName();
+        if (isPagePack(blob)) {
+            return name.substring("pages/".length(), name.indexOf('.')) + ".txt";
+        }
+        return name.substring("books/".length());
+    }
+
+    /**
+     * Returns whether a listed blob is a page pack rather than book content.
+     *
+     * @param blob the blob
+     * @return {@code true} if the blob is a page pack
+     */
+    public static boolean isPagePack(Blob blob) {
+        return blob.getName().startsWith("pages/");
+    }
+
+    /**
+     * Checks which of the given files exist using a single batch request.
+     *
+     * @param filenames the names of the files
+     * @return for each file name, in order, whether the file exists
+     */
+    public List<Boolean> contentExists(List<String> filenames) {
+        List<BlobId> blobIds = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            blobIds.add(BlobId.of(bucketName, "books/" + filename));
+        }
+        List<Boolean> exists = new ArrayList<>(filenames.size());
+        for (Blob blob : storage.get(blobIds)) {
+            exists.add(blob != null);
+        }
+        return exists;
+    }
+
+    /**
+     * Returns whether a blob was last written or touched before a point in time.
+     *
+     * @param blob the blob
+     * @param cutoffMillis the point in time, in milliseconds since the epoch
+     * @return {@code true} if the blob was last written before the cutoff
+     */
+    public static boolean writtenBefore(BlobInfo blob, long cutoffMillis) {
+        OffsetDateTime written = blob.getUpdateTimeOffsetDateTime() != null
+                ? blob.getUpdateTimeOffsetDateTime()
+                : blob.getCreateTimeOffsetDateTime();
+        return written != null && written.toInstant().toEpochMilli() < cutoffMillis;
+    }
 
-        return new PagedContent(
-            new String(pageContent),
-            pageNumber,
-            totalPages,
-            length,
-            totalSize
-        );
+    /**
+     * Deletes listed blobs using a single batch request. Each delete only succeeds if the
+     * blob is unchanged since it was listed, so a blob touched by an upload in the
+     * meantime is kept.
+     *
+     * @param blobs the blobs, as returned by {@link #listBookContent}
+     * @return the number of blobs that were deleted
+     */
+    public int deleteOrphanedContent(List<Blob> blobs) {
+        StorageBatch batch = storage.batch();
+        List<StorageBatchResult<Boolean>> results = new ArrayList<>(blobs.size());
+        for (Blob blob : blobs) {
+            results.add(batch.delete(BlobId.of(bucketName, blob.getName()),
+                    Storage.BlobSourceOption.generationMatch(blob.getGeneration()),
+                    Storage.BlobSourceOption.metagenerationMatch(blob.getMetageneration())));
+        }
+        callStorage(() -> {
+            batch.submit();
+            return null;
+        });
+        int deleted = 0;
+        for (int i = 0; i < blobs.size(); i++) {
+            String name = blobs.get(i).getName();
+            try {
+                if (Boolean.TRUE.equals(results.get(i).get())) {
+                    deleted++;
+                    if (localTier != null && name.startsWith("books/")) {
+                        localTier.evict(name.substring("books/".length()));
+                    }
+                }
+            } catch (StorageException e) {
+                if (e.getCode() == 412) {
+                    logger.info("Keeping {}, it was referenced again since it was listed", name);
+                } else {
+                    logger.warn("Failed to delete {} from cloud storage: {}", name, e.getMessage());
+                }
+            }
+        }
+        logger.info("Deleted {} of {} files from cloud storage", deleted, blobs.size());
+        return deleted;
+    }
+
+    /**
+     * Deletes content addressed content once the last book referencing it is deleted.
+     * Content written or touched within {@code scrubber.grace-minutes} is kept, since an
+     * upload of the same content may be about to reference it, and the delete only
+     * succeeds if the blob is unchanged since it was read. Content that is kept is
+     * reclaimed by the storage scrubber once it is past the grace period. The page packs
+     * of every page size are deleted the same way.
+     *
+     * @param filename the content addressed file name
+     * @return {@code true} if the content was deleted
+     */
+    public boolean deleteUnreferencedContent(String filename) {
+        try {
+            long cutoff = System.currentTimeMillis() - reclaimGraceMillis;
+            String contentHash = filename.substring(0, filename.length() - ".txt".length());
+            List<Blob> pagePacks = new ArrayList<>();
+            for (Blob pagePack : callStorage(() -> storage.list(bucketName,
+                    Storage.BlobListOption.prefix(pagePackPrefix(contentHash))).iterateAll())) {
+                if (writtenBefore(pagePack, cutoff)) {
+                    pagePacks.add(pagePack);
+                }
+            }
+            if (!pagePacks.isEmpty()) {
+                deleteOrphanedContent(pagePacks);
+            }
+
+            Blob blob = callStorage(() -> storage.get(BlobId.of(bucketName, "books/" + filename)));
+            if (blob == null) {
+                logger.warn("File not found in cloud storage: {}", filename);
+                return false;
+            }
+            if (!writtenBefore(blob, cutoff)) {
+                logger.info("Leaving recently referenced {} to the storage scrubber", filename);
+                return false;
+            }
+            return deleteOrphanedContent(List.of(blob)) == 1;
+        } catch (StorageException | StorageUnavailableException e) {
+            logger.error("Failed to delete file from cloud storage: {}", e.getMessage());
+            return false;
+        }
     }
 
     public boolean deleteBookContent(String filename) {
         try {
             BlobId blobId = BlobId.of(bucketName, "books/" + filename);
-            boolean deleted = storage.delete(blobId);
+            boolean deleted = callStorage(() -> storage.delete(blobId));
+            if (localTier != null) {
+                localTier.evict(filename);
+            }
             if (deleted) {
                 logger.info("Successfully deleted file from cloud storage: {}", filename);
             } else {
@@ -0,0 +1,129 @@
+package com.itp.DigLib.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.itp.DigLib.api.model.Book;
+
+/**
+ * Streams the whole content of a book for offline reading. The content is fetched as
+ * ranged reads of {@code download.chunk-size} bytes, with up to {@code download.parallelism}
+ * reads in flight ahead of the chunk being written, so the download runs close to wire
+ * speed instead of paying one storage round-trip per chunk. Chunks bypass the content
+ * cache, so a download does not evict the ranges other readers are hitting.
+ */
+@Service
+public class BookDownloadService {
+    private static final Logger logger = LoggerFactory.getLogger(BookDownloadService.class);
+
+    public enum Format { TXT, ZIP }
+
+    private static final Pattern UNSAFE_NAME_CHARACTERS = Pattern.compile("[^\\p{L}\\p{N}_-]");
+
+    private final BookContentService bookContentService;
+    private final int chunkSize;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public BookDownloadService(
+            BookContentService bookContentService,
+            @Qualifier("downloadExecutor") ExecutorService executor,
+            @Value("${download.chunk-size:1048576}") int chunkSize,
+            @Value("${download.parallelism:4}") int parallelism
+    ) {
+        this.bookContentService = bookContentService;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the name of the file a book is downloaded as. Only letters, digits, {@code _}
+     * and {@code -} of the title are kept, so the name cannot hold a path.
+     *
+     * @param book the book
+     * @param format the download format
+     * @return the file name
+     */
+    public static String downloadName(Book book, Format format) {
+        String title = book.getTitle() != null ? Book.toCamelCase(book.getTitle()) : "";
+        String name = UNSAFE_NAME_CHARACTERS.matcher(title).replaceAll("_");
+        return (name.isEmpty() ? "book" : name) + (format == Format.ZIP ? ".zip" : ".txt");
+    }
+
+    /**
+     * Writes a book to the output stream in the given format. A zip download holds the
+     * content and a {@code metadata.txt} with the book's metadata.
+     *
+     * @param book the book to download
+     * @param format the download format
+     * @param out the stream to write to, left open
+     * @throws IOException if the content could not be read or written
+     */
+    public void download(Book book, Format format, OutputStream out) throws IOException {
+        if (format == Format.ZIP) {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            zip.putNextEntry(new ZipEntry(downloadName(book, Format.TXT)));
+            writeContent(book, zip);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("metadata.txt"));
+            zip.write(book.getMetadata().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.finish();
+        } else {
+            writeContent(book, out);
+        }
+        out.flush();
+    }
+
+    private void writeContent(Book book, OutputStream out) throws IOException {
+        long totalSize = bookContentService.contentLength(book);
+        String filename = book.getFileName();
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>(parallelism);
+        long nextOffset = 0;
+        try {
+            while (nextOffset < totalSize || !inFlight.isEmpty()) {
+                while (nextOffset < totalSize && inFlight.size() < parallelism) {
+                    long from = nextOffset;
+                    int length = (int) Math.min(chunkSize, totalSize - from);
+                    inFlight.addLast(executor.submit(() -> bookContentService.readRange(filename, from, length, false)));
+                    nextOffset += length;
+                }
+                out.write(inFlight.removeFirst().get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to download book content", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading book content", e);
+        } finally {
+            // Interrupts reads still running when the download failed or the client left
+            for (Future<byte[]> chunk : inFlight) {
+                chunk.cancel(true);
+            }
+        }
+        logger.info("Downloaded {} bytes of book with ID: {}", totalSize, book.getID());
+    }
+}
@@ -0,0 +1,82 @@
+package com.itp.DigLib.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.db.BookRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Exports the whole catalogue as newline delimited JSON, one book per line. Books are
+ * read in pages by ID and each page is written before the next is read, so memory use
+ * does not grow with the size of the catalogue and no database cursor stays open while
+ * a slow client reads the response.
+ */
+@Service
+public class CatalogueExportService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueExportService.class);
+    private static final int PAGE_SIZE = 500;
+
+    private final BookRepository bookRepo;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public CatalogueExportService(BookRepository bookRepo, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.bookRepo = bookRepo;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every book to the output stream as a line of JSON.
+     *
+     * @param out the stream to write to, left open
+     * @return the number of books written
+     */
+    public long exportTo(OutputStream out) {
+        PageRequest pageRequest = PageRequest.of(0, PAGE_SIZE, Sort.by("id"));
+        long exported = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            int lastId = Integer.MIN_VALUE;
+            Slice<Book> slice;
+            do {
+                slice = bookRepo.findByIdGreaterThan(lastId, pageRequest);
+                List<Book> books = slice.getContent();
+                if (books.isEmpty()) {
+                    break;
+                }
+                for (Book book : books) {
+                    generator.writeObject(book);
+                }
+                generator.flush();
+                exported += books.size();
+                lastId = books.get(books.size() - 1).getID();
+                // Keep the persistence context from growing with the catalogue
+                entityManager.clear();
+            } while (slice.hasNext());
+            if (exported > 0) {
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write catalogue export", e);
+        }
+        logger.info("Exported {} books", exported);
+        return exported;
+    }
+}
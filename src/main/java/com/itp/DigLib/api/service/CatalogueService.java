@@ -0,0 +1,64 @@
+package com.itp.DigLib.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.BookChange;
+import com.itp.DigLib.api.model.ChangeSequence;
+import com.itp.DigLib.db.BookChangeRepository;
+import com.itp.DigLib.db.BookRepository;
+import com.itp.DigLib.db.ChangeSequenceRepository;
+
+/**
+ * Writes to the catalogue. Every insert and delete of a {@link Book} is recorded in the
+ * change log in the same transaction, so the change feed never misses a write. Change
+ * IDs are reserved from the locked {@link ChangeSequence}, which serializes catalogue
+ * writes from the reservation until commit.
+ */
+@Service
+public class CatalogueService {
+    private final BookRepository bookRepo;
+    private final BookChangeRepository bookChangeRepo;
+    private final ChangeSequenceRepository changeSequenceRepo;
+
+    public CatalogueService(BookRepository bookRepo, BookChangeRepository bookChangeRepo,
+                            ChangeSequenceRepository changeSequenceRepo) {
+        this.bookRepo = bookRepo;
+        this.bookChangeRepo = bookChangeRepo;
+        this.changeSequenceRepo = changeSequenceRepo;
+    }
+
+    @Transactional
+    public Book addBook(Book book) {
+        Book saved = bookRepo.save(book);
+        bookChangeRepo.save(new BookChange(reserveChangeIds(1), saved.getID(), BookChange.Type.CREATED));
+        return saved;
+    }
+
+    @Transactional
+    public void deleteBook(Book book) {
+        bookRepo.deleteById(book.getID());
+        bookChangeRepo.save(new BookChange(reserveChangeIds(1), book.getID(), BookChange.Type.DELETED));
+    }
+
+    @Transactional
+    public void deleteBooks(List<Book> books) {
+        bookRepo.deleteAll(books);
+        long changeId = reserveChangeIds(books.size());
+        List<BookChange> tombstones = new ArrayList<>(books.size());
+        for (Book book : books) {
+            tombstones.add(new BookChange(changeId++, book.getID(), BookChange.Type.DELETED));
+        }
+        bookChangeRepo.saveAll(tombstones);
+    }
+
+    private long reserveChangeIds(int count) {
+        ChangeSequence sequence = changeSequenceRepo.findForUpdate()
+                .orElseThrow(() -> new IllegalStateException("The change log has not been initialized"));
+        return sequence.reserve(count);
+    }
+}
@@ -0,0 +1,94 @@
+package com.itp.DigLib.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.itp.DigLib.api.model.BookChange;
+import com.itp.DigLib.api.model.ChangeSequence;
+import com.itp.DigLib.db.BookChangeRepository;
+import com.itp.DigLib.db.BookRepository;
+import com.itp.DigLib.db.ChangeSequenceRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Initializes the change log once the context has refreshed. On the first start it
+ * records a {@code CREATED} change for every book added before the change log existed,
+ * so that a client syncing from token 0 receives the whole catalogue, and then creates
+ * the {@link ChangeSequence} continuing after the highest change ID.
+ *
+ * <p>Running as an {@link ApplicationRunner} keeps the database out of the context
+ * refresh, so training runs that exit on refresh need no database, while the
+ * application still only reports itself ready for traffic once the runner is done.</p>
+ */
+@Component
+public class ChangeLogInitializer implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLogInitializer.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepo;
+    private final BookChangeRepository bookChangeRepo;
+    private final ChangeSequenceRepository changeSequenceRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public ChangeLogInitializer(
+            BookRepository bookRepo,
+            BookChangeRepository bookChangeRepo,
+            ChangeSequenceRepository changeSequenceRepo,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.bookRepo = bookRepo;
+        this.bookChangeRepo = bookChangeRepo;
+        this.changeSequenceRepo = changeSequenceRepo;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (changeSequenceRepo.existsById(ChangeSequence.ID)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> backfill());
+        } catch (RuntimeException e) {
+            // Another instance starting at the same time wins on the change IDs it inserted
+            if (!changeSequenceRepo.existsById(ChangeSequence.ID)) {
+                throw e;
+            }
+            logger.info("Change log was initialized by another instance");
+        }
+    }
+
+    private void backfill() {
+        long lastId = bookChangeRepo.findMaxId();
+        long backfilled = 0;
+        int after = 0;
+        List<Integer> bookIds;
+        while (!(bookIds = bookRepo.findIdsWithoutChange(after, BookChange.Type.CREATED, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            List<BookChange> changes = new ArrayList<>(bookIds.size());
+            for (int bookId : bookIds) {
+                changes.add(new BookChange(++lastId, bookId, BookChange.Type.CREATED));
+            }
+            bookChangeRepo.saveAll(changes);
+            // Keep the persistence context from growing with the catalogue
+            entityManager.flush();
+            entityManager.clear();
+            backfilled += bookIds.size();
+            after = bookIds.get(bookIds.size() - 1);
+        }
+        changeSequenceRepo.save(new ChangeSequence(lastId));
+        logger.info("Initialized the change log with {} existing books, next change ID: {}", backfilled, lastId + 1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.itp.DigLib.api.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A consecutive failure circuit breaker.
+ *
+ * <p>After {@code failureThreshold} failures in a row the breaker opens and rejects calls
+ * for {@code openMillis}. It then lets a single trial call through per period: a success
+ * closes it again, a failure (or no outcome at all) keeps it open for another period.</p>
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAtNanos = new AtomicLong();
+    private volatile boolean open;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this(name, failureThreshold, openMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns whether a call may go through. When this returns {@code true} the caller
+     * reports the outcome with {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @return {@code true} if the call may go through
+     */
+    public boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        long openedAt = openedAtNanos.get();
+        // Restarting the open period admits exactly one trial call
+        return now - openedAt >= openNanos && openedAtNanos.compareAndSet(openedAt, now);
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            logger.info("Circuit breaker '{}' closed", name);
+        }
+    }
+
+    public void recordFailure() {
+        if (open) {
+            // The trial call failed, stay open for another period
+            openedAtNanos.set(clock.getAsLong());
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAtNanos.set(clock.getAsLong());
+            open = true;
+            logger.warn("Circuit breaker '{}' opened after {} consecutive failures", name, failureThreshold);
+        }
+    }
+
+    public State getState() {
+        if (!open) {
+            return State.CLOSED;
+        }
+        return clock.getAsLong() - openedAtNanos.get() < openNanos ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,22 @@
+package com.itp.DigLib.api.service;
+
+/**
+ * A cache of immutable content chunks, keyed by file name and byte range.
+ */
+public interface ContentCache {
+    /**
+     * Returns the cached content for a key.
+     *
+     * @param key the cache key
+     * @return the cached content, or {@code null} on a miss
+     */
+    byte[] get(String key);
+
+    /**
+     * Caches content under a key.
+     *
+     * @param key the cache key
+     * @param content the content to cache
+     */
+    void put(String key, byte[] content);
+}
@@ -0,0 +1,228 @@
+package com.itp.DigLib.api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+/**
+ * Converts uploaded content to NFC normalized UTF-8, the only encoding content is
+ * stored in, so that reads can serve stored bytes as-is.
+ *
+ * <p>The source encoding is taken from a byte order mark if there is one, then from
+ * the encoding declared by the client, and otherwise detected: content that decodes as
+ * strict UTF-8 is UTF-8, anything else is decoded with the fallback encoding. Content
+ * is decoded, normalized and encoded in chunks in a single pass, and content that is
+ * already normalized UTF-8 is returned without being copied.</p>
+ */
+public final class ContentTranscoder {
+    public static final Charset DEFAULT_FALLBACK = Charset.forName("windows-1252");
+
+    private static final int CHUNK_CHARS = 8192;
+    private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+    private static final Charset UTF_32LE = Charset.forName("UTF-32LE");
+
+    private ContentTranscoder() {}
+
+    /**
+     * Content converted to UTF-8 and the encoding it was converted from.
+     */
+    public static final class Result {
+        private final byte[] content;
+        private final Charset sourceEncoding;
+        private final boolean transcoded;
+
+        private Result(byte[] content, Charset sourceEncoding, boolean transcoded) {
+            this.content = content;
+            this.sourceEncoding = sourceEncoding;
+            this.transcoded = transcoded;
+        }
+
+        /** The NFC normalized UTF-8 content, without a byte order mark. */
+        public byte[] getContent() { return content; }
+        /** The encoding the content was uploaded in. */
+        public Charset getSourceEncoding() { return sourceEncoding; }
+        /** Whether the content differs from the uploaded bytes. */
+        public boolean isTranscoded() { return transcoded; }
+    }
+
+    /**
+     * Converts content to NFC normalized UTF-8.
+     *
+     * @param content the uploaded content
+     * @param declared the encoding declared by the client, or {@code null} to detect it
+     * @param fallback the encoding of content that is not valid UTF-8
+     * @return the converted content and its source encoding
+     * @throws IllegalArgumentException if the content is not valid in the declared encoding
+     */
+    public static Result transcode(byte[] content, Charset declared, Charset fallback) {
+        Charset bom = byteOrderMark(content);
+        if (bom != null) {
+            return transcode(content, bomLength(bom), bom, true);
+        }
+        if (declared != null) {
+            return transcode(content, 0, declared, true);
+        }
+        try {
+            return transcode(content, 0, StandardCharsets.UTF_8, true);
+        } catch (IllegalArgumentException e) {
+            // Not UTF-8, the fallback decodes anything
+            return transcode(content, 0, fallback != null ? fallback : DEFAULT_FALLBACK, false);
+        }
+    }
+
+    /**
+     * Returns the encoding indicated by the byte order mark at the start of content.
+     *
+     * @param content the content
+     * @return the encoding, or {@code null} if the content has no byte order mark
+     */
+    static Charset byteOrderMark(byte[] content) {
+        if (startsWith(content, 0x00, 0x00, 0xFE, 0xFF)) {
+            return UTF_32BE;
+        }
+        if (startsWith(content, 0xFF, 0xFE, 0x00, 0x00)) {
+            return UTF_32LE;
+        }
+        if (startsWith(content, 0xEF, 0xBB, 0xBF)) {
+            return StandardCharsets.UTF_8;
+        }
+        if (startsWith(content, 0xFE, 0xFF)) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (startsWith(content, 0xFF, 0xFE)) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+
+    private static int bomLength(Charset charset) {
+        if (charset.equals(UTF_32BE) || charset.equals(UTF_32LE)) {
+            return 4;
+        }
+        return charset.equals(StandardCharsets.UTF_8) ? 3 : 2;
+    }
+
+    private static boolean startsWith(byte[] content, int... prefix) {
+        if (content.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((content[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Result transcode(byte[] content, int offset, Charset source, boolean strict) {
+        CodingErrorAction onError = strict ? CodingErrorAction.REPORT : CodingErrorAction.REPLACE;
+        CharsetDecoder decoder = source.newDecoder()
+                .onMalformedInput(onError)
+                .onUnmappableCharacter(onError);
+        ByteBuffer in = ByteBuffer.wrap(content, offset, content.length - offset);
+        CharBuffer chars = CharBuffer.allocate(CHUNK_CHARS);
+        Output out = new Output(content, offset == 0 && source.equals(StandardCharsets.UTF_8));
+
+        try {
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                CoderResult result = decoder.decode(in, chars, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                endOfInput = result.isUnderflow();
+                if (endOfInput) {
+                    decoder.flush(chars);
+                }
+                chars.flip();
+                int split = endOfInput ? chars.limit() : safeSplit(chars);
+                out.write(chars.subSequence(0, split));
+                chars.position(split);
+                chars.compact();
+            }
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Content is not valid " + source.name(), e);
+        }
+        return out.result(source);
+    }
+
+    /**
+     * Finds the end of the longest prefix of the decoded chunk that can be normalized
+     * on its own: up to and including the last whitespace, which never composes with
+     * the character that follows it.
+     */
+    private static int safeSplit(CharBuffer chars) {
+        for (int i = chars.limit() - 1; i > 0; i--) {
+            if (Character.isWhitespace(chars.get(i))) {
+                return i + 1;
+            }
+        }
+        // No whitespace in a whole chunk, split anywhere but inside a surrogate pair
+        int split = chars.limit();
+        return Character.isHighSurrogate(chars.get(split - 1)) ? split - 1 : split;
+    }
+
+    /**
+     * Collects the UTF-8 output. While the output is identical to the input nothing is
+     * copied, only the length of the identical prefix is counted.
+     */
+    private static final class Output {
+        private final byte[] input;
+        private boolean identical;
+        private int identicalLength;
+        private ByteArrayOutputStream bytes;
+
+        Output(byte[] input, boolean identical) {
+            this.input = input;
+            this.identical = identical;
+            if (!identical) {
+                bytes = new ByteArrayOutputStream(input.length + input.length / 8);
+            }
+        }
+
+        void write(CharSequence segment) {
+            String normalized = Normalizer.isNormalized(segment, Normalizer.Form.NFC)
+                    ? null
+                    : Normalizer.normalize(segment, Normalizer.Form.NFC);
+            if (identical) {
+                if (normalized == null) {
+                    identicalLength += utf8Length(segment);
+                    return;
+                }
+                identical = false;
+                bytes = new ByteArrayOutputStream(input.length + input.length / 8);
+                bytes.write(input, 0, identicalLength);
+            }
+            byte[] encoded = (normalized != null ? normalized : segment.toString()).getBytes(StandardCharsets.UTF_8);
+            bytes.write(encoded, 0, encoded.length);
+        }
+
+        Result result(Charset source) {
+            return identical ? new Result(input, source, false) : new Result(bytes.toByteArray(), source, true);
+        }
+
+        private static int utf8Length(CharSequence chars) {
+            int length = 0;
+            for (int i = 0; i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isSurrogate(c)) {
+                    length += 2; // four bytes per surrogate pair
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.itp.DigLib.api.service;
+
+import java.util.Arrays;
+
+/**
+ * Tracks a percentile over a sliding window of the most recent latency samples.
+ */
+public class LatencyTracker {
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private final double percentile;
+    private int next;
+    private int count;
+    private volatile long current;
+
+    /**
+     * @param windowSize the number of recent samples to keep
+     * @param percentile the percentile to track, between 0 and 1
+     * @param initialNanos the value reported before the window has filled up
+     */
+    public LatencyTracker(int windowSize, double percentile, long initialNanos) {
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+        this.current = initialNanos;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        if (count == samples.length && next % RECOMPUTE_EVERY == 0) {
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            current = sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+
+    /**
+     * Returns the tracked percentile of the current window.
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getNanos() {
+        return current;
+    }
+}
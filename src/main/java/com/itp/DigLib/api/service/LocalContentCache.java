@@ -0,0 +1,42 @@
+package com.itp.DigLib.api.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-process least recently used {@link ContentCache} bounded by the total number of
+ * cached bytes.
+ */
+public class LocalContentCache implements ContentCache {
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    public LocalContentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized byte[] get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, byte[] content) {
+        if (content.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(key, content);
+        currentBytes += content.length - (previous != null ? previous.length : 0);
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+}
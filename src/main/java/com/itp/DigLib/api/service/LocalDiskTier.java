@@ -0,0 +1,330 @@
+package com.itp.DigLib.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps whole copies of popular content on local disk, so reads of the few books that
+ * get most of the traffic are served at local disk latency and the bucket only serves
+ * the cold tail.
+ *
+ * <p>Every read counts towards the popularity of a file. A file is admitted once it has
+ * been read {@code admitAfter} times, and when the tier is full only by evicting files
+ * that are less popular than itself, so a burst of one-off reads cannot flush the hot
+ * set. Counters are halved every {@code decayAfter} reads so that popularity follows
+ * changes in demand, and are saved to the tier directory so they survive restarts, as
+ * do the files themselves.</p>
+ */
+public class LocalDiskTier {
+    private static final Logger logger = LoggerFactory.getLogger(LocalDiskTier.class);
+    private static final String COUNTERS_FILE = "popularity.properties";
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9A-Za-z._-]+\\.txt");
+
+    /**
+     * Writes the content of a file to a local path.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        void load(Path target) throws IOException;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int admitAfter;
+    private final long decayAfter;
+    private final Map<String, Integer> counters = new ConcurrentHashMap<>();
+    private final Map<String, Long> resident = new ConcurrentHashMap<>();
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final AtomicLong reads = new AtomicLong();
+    private long usedBytes;   // Guarded by this
+
+    public LocalDiskTier(Path directory, long maxBytes, int admitAfter, long decayAfter) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.admitAfter = admitAfter;
+        this.decayAfter = decayAfter;
+        Files.createDirectories(directory);
+        loadCounters();
+        loadResidentFiles();
+        logger.info("Local disk tier in {} holds {} files, {} of {} bytes", directory, resident.size(), usedBytes, maxBytes);
+    }
+
+    /**
+     * Reads a range of a file if it is on local disk, and counts the read towards the
+     * popularity of the file either way.
+     *
+     * @param filename the name of the file
+     * @param from the offset of the first byte to read
+     * @param length the maximum number of bytes to read
+     * @return the bytes read, or {@code null} if the file is not on local disk
+     */
+    public byte[] read(String filename, long from, int length) {
+        countRead(filename);
+        return peek(filename, from, length);
+    }
+
+    /**
+     * Reads a range of a file if it is on local disk, without counting the read towards
+     * the popularity of the file.
+     *
+     * @param filename the name of the file
+     * @param from the offset of the first byte to read
+     * @param length the maximum number of bytes to read
+     * @return the bytes read, or {@code null} if the file is not on local disk
+     */
+    public byte[] peek(String filename, long from, int length) {
+        if (!resident.containsKey(filename)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(filename), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            long position = from;
+            int read;
+            while (buffer.hasRemaining() && (read = channel.read(buffer, position)) >= 0) {
+                position += read;
+            }
+            return buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+        } catch (NoSuchFileException e) {
+            // Evicted while being read
+            return null;
+        } catch (ClosedByInterruptException e) {
+            // The reader was cancelled, the file itself is fine
+            return null;
+        } catch (IOException e) {
+            logger.warn("Failed to read {} from local disk, dropping it: {}", filename, e.getMessage());
+            evict(filename);
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether a file has become popular enough to be loaded onto local disk. Only
+     * returns {@code true} once per load, the caller must then call {@link #admit}.
+     *
+     * @param filename the name of the file
+     * @return {@code true} if the caller should load the file
+     */
+    public boolean wantsAdmission(String filename) {
+        if (!FILE_NAME.matcher(filename).matches() || resident.containsKey(filename)) {
+            return false;
+        }
+        int count = counters.getOrDefault(filename, 0);
+        if (count < admitAfter || (isFull() && count <= leastPopularCount())) {
+            return false;
+        }
+        return loading.add(filename);
+    }
+
+    /**
+     * Loads a file onto local disk if it is still more popular than the files it
+     * would evict.
+     *
+     * @param filename the name of the file, after {@link #wantsAdmission} returned {@code true}
+     * @param loader writes the content of the file
+     * @return {@code true} if the file was admitted
+     * @throws IOException if the file could not be loaded
+     */
+    public boolean admit(String filename, Loader loader) throws IOException {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, filename, ".tmp");
+            loader.load(temp);
+            long size = Files.size(temp);
+            synchronized (this) {
+                if (!makeRoom(filename, size)) {
+                    logger.debug("Not admitting {} to local disk, the tier holds more popular files", filename);
+                    return false;
+                }
+                Files.move(temp, directory.resolve(filename), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                resident.put(filename, size);
+                usedBytes += size;
+            }
+            logger.info("Admitted {} ({} bytes) to local disk", filename, size);
+            return true;
+        } finally {
+            loading.remove(filename);
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Removes a file from local disk, for example after its content was deleted.
+     *
+     * @param filename the name of the file
+     */
+    public synchronized void evict(String filename) {
+        Long size = resident.remove(filename);
+        if (size == null) {
+            return;
+        }
+        usedBytes -= size;
+        try {
+            Files.deleteIfExists(directory.resolve(filename));
+        } catch (IOException e) {
+            logger.warn("Failed to delete {} from local disk: {}", filename, e.getMessage());
+        }
+    }
+
+    public boolean contains(String filename) {
+        return resident.containsKey(filename);
+    }
+
+    public int popularity(String filename) {
+        return counters.getOrDefault(filename, 0);
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Saves the popularity counters, so they survive restarts.
+     */
+    @Scheduled(fixedDelayString = "${tier.local.persist-interval-ms:60000}")
+    public void saveCounters() {
+        Properties properties = new Properties();
+        counters.forEach((filename, count) -> properties.setProperty(filename, Integer.toString(count)));
+        Path file = directory.resolve(COUNTERS_FILE);
+        try {
+            Path temp = Files.createTempFile(directory, COUNTERS_FILE, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Read counts of book content");
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to save local disk tier popularity counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the popularity counters on shutdown.
+     */
+    public void close() {
+        saveCounters();
+    }
+
+    private void countRead(String filename) {
+        counters.merge(filename, 1, Integer::sum);
+        if (reads.incrementAndGet() % decayAfter == 0) {
+            decay();
+        }
+    }
+
+    /**
+     * Halves all counters, forgetting files that are no longer read.
+     */
+    void decay() {
+        counters.replaceAll((filename, count) -> count / 2);
+        counters.values().removeIf(count -> count == 0);
+    }
+
+    private synchronized boolean isFull() {
+        return usedBytes >= maxBytes;
+    }
+
+    private int leastPopularCount() {
+        int least = Integer.MAX_VALUE;
+        for (String filename : resident.keySet()) {
+            least = Math.min(least, popularity(filename));
+        }
+        return least;
+    }
+
+    /**
+     * Evicts the least popular files until {@code size} more bytes fit, provided all of
+     * them are less popular than the file being admitted.
+     */
+    private boolean makeRoom(String filename, long size) {
+        if (size > maxBytes) {
+            return false;
+        }
+        int candidate = popularity(filename);
+        while (usedBytes + size > maxBytes) {
+            String victim = null;
+            int victimCount = Integer.MAX_VALUE;
+            for (String residentFile : resident.keySet()) {
+                int count = popularity(residentFile);
+                if (count < victimCount) {
+                    victim = residentFile;
+                    victimCount = count;
+                }
+            }
+            if (victim == null || victimCount >= candidate) {
+                return false;
+            }
+            logger.info("Evicting {} from local disk for {}", victim, filename);
+            evict(victim);
+        }
+        return true;
+    }
+
+    private void loadCounters() {
+        Path file = directory.resolve(COUNTERS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.warn("Failed to load local disk tier popularity counters: {}", e.getMessage());
+            return;
+        }
+        for (String filename : properties.stringPropertyNames()) {
+            try {
+                counters.put(filename, Integer.parseInt(properties.getProperty(filename)));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid popularity counter for {}", filename);
+            }
+        }
+    }
+
+    private synchronized void loadResidentFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String filename = file.getFileName().toString();
+                if (filename.endsWith(".tmp")) {
+                    // Left behind by a load interrupted by a restart
+                    Files.deleteIfExists(file);
+                } else if (FILE_NAME.matcher(filename).matches()) {
+                    long size = Files.size(file);
+                    resident.put(filename, size);
+                    usedBytes += size;
+                }
+            }
+        }
+        // The limit may have been lowered since the files were admitted
+        while (usedBytes > maxBytes) {
+            String victim = null;
+            for (String filename : resident.keySet()) {
+                if (victim == null || popularity(filename) < popularity(victim)) {
+                    victim = filename;
+                }
+            }
+            evict(victim);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.itp.DigLib.api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The layout of a page pack: every page of a book compressed on its own, so that a
+ * single page can be served pre-compressed with one ranged read.
+ *
+ * <pre>
+ * int    pageCount
+ * int[]  offsets     pageCount + 1 offsets from the start of the pack, page n spans [offsets[n], offsets[n + 1])
+ * byte[] pages       one complete gzip member per page
+ * </pre>
+ *
+ * All integers are big-endian.
+ */
+public final class PagePack {
+    private PagePack() {}
+
+    /**
+     * Builds the page pack of content split into pages of {@code pageSize} bytes, with
+     * page boundaries aligned to UTF-8 characters by {@link Utf8Pages}.
+     *
+     * @param content the content to pack
+     * @param pageSize the number of bytes per page
+     * @return the page pack
+     */
+    public static byte[] build(byte[] content, int pageSize) {
+        int pageCount = (content.length + pageSize - 1) / pageSize;
+        int headerLength = offsetPosition(pageCount) + Integer.BYTES;
+        ByteBuffer header = ByteBuffer.allocate(headerLength);
+        header.putInt(pageCount);
+
+        ByteArrayOutputStream pages = new ByteArrayOutputStream(content.length / 3);
+        header.putInt(headerLength);
+        for (int page = 0; page < pageCount; page++) {
+            int start = Utf8Pages.align(content, page * pageSize);
+            int end = Utf8Pages.align(content, Math.min(content.length, (page + 1) * pageSize));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(pages)) {
+                gzip.write(content, start, end - start);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to compress page " + page, e);
+            }
+            header.putInt(headerLength + pages.size());
+        }
+
+        byte[] pack = new byte[headerLength + pages.size()];
+        System.arraycopy(header.array(), 0, pack, 0, headerLength);
+        System.arraycopy(pages.toByteArray(), 0, pack, headerLength, pages.size());
+        return pack;
+    }
+
+    /**
+     * Returns the position in the pack of the offset of a page. The offset of the page
+     * and of the page after it, which is where the page ends, are the 8 bytes at this position.
+     *
+     * @param page the page (0-based)
+     * @return the position of the offset of the page
+     */
+    public static int offsetPosition(int page) {
+        return Integer.BYTES + page * Integer.BYTES;
+    }
+}
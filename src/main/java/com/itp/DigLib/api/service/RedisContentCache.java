@@ -0,0 +1,52 @@
+package com.itp.DigLib.api.service;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * A {@link ContentCache} in Redis, shared by every replica so that hot content is fetched
+ * from cloud storage once per cluster instead of once per replica. Redis failures are
+ * treated as cache misses, the cache never fails a read.
+ */
+public class RedisContentCache implements ContentCache {
+    private static final Logger logger = LoggerFactory.getLogger(RedisContentCache.class);
+    private static final String KEY_PREFIX = "diglib:content:";
+
+    private final RedisTemplate<String, byte[]> redis;
+    private final Duration timeToLive;
+
+    public RedisContentCache(RedisConnectionFactory connectionFactory, Duration timeToLive) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redis = template;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return redis.opsForValue().get(KEY_PREFIX + key);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to read from shared content cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] content) {
+        try {
+            redis.opsForValue().set(KEY_PREFIX + key, content, timeToLive);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to write to shared content cache: {}", e.getMessage());
+        }
+    }
+}
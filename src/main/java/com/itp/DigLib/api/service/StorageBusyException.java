@@ -0,0 +1,15 @@
+package com.itp.DigLib.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when every cloud storage fetch slot is taken and none freed up in time.
+ * Surfaces as {@code 429 Too Many Requests} so overload sheds load instead of queueing.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class StorageBusyException extends RuntimeException {
+    public StorageBusyException(String message) {
+        super(message);
+    }
+}
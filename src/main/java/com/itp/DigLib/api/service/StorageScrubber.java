@@ -0,0 +1,247 @@
+package com.itp.DigLib.api.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.storage.Blob;
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.db.BookRepository;
+
+/**
+ * Background job that reconciles cloud storage with the {@link Book} table.
+ *
+ * <p>The bucket listing (name order) and the table (ID order) are each walked in
+ * batches, and every batch is checked against the other side with a single query or
+ * batch request, so memory use is bounded by the batch size regardless of the size of
+ * the catalogue. Two kinds of drift are found:</p>
+ * <ul>
+ *   <li>orphaned blobs, which no row references, for example after a failed delete. Page
+ *   packs are orphaned when no row with their content records their page size;</li>
+ *   <li>dangling rows, whose content is missing from the bucket.</li>
+ * </ul>
+ * <p>Drift is always reported. Orphaned blobs older than the grace period are deleted when
+ * {@code scrubber.repair} is set, unless an upload referenced them again after they were
+ * listed; dangling rows are only deleted when
+ * {@code scrubber.delete-dangling-rows} is set. Storage and database operations are paced
+ * to {@code scrubber.max-ops-per-second} so the job does not compete with serving traffic.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "scrubber.enabled", havingValue = "true")
+public class StorageScrubber {
+    private static final Logger logger = LoggerFactory.getLogger(StorageScrubber.class);
+
+    private final BookRepository bookRepo;
+    private final BookContentService bookContentService;
+    private final CatalogueService catalogueService;
+    private final int batchSize;
+    private final int maxOpsPerSecond;
+    private final long gracePeriodMillis;
+    private final boolean repair;
+    private final boolean deleteDanglingRows;
+
+    private long nextOpNanos;
+
+    public StorageScrubber(
+            BookRepository bookRepo,
+            BookContentService bookContentService,
+            CatalogueService catalogueService,
+            @Value("${scrubber.batch-size:500}") int batchSize,
+            @Value("${scrubber.max-ops-per-second:100}") int maxOpsPerSecond,
+            @Value("${scrubber.grace-minutes:60}") long graceMinutes,
+            @Value("${scrubber.repair:false}") boolean repair,
+            @Value("${scrubber.delete-dangling-rows:false}") boolean deleteDanglingRows
+    ) {
+        this.bookRepo = bookRepo;
+        this.bookContentService = bookContentService;
+        this.catalogueService = catalogueService;
+        this.batchSize = batchSize;
+        this.maxOpsPerSecond = maxOpsPerSecond;
+        this.gracePeriodMillis = TimeUnit.MINUTES.toMillis(graceMinutes);
+        this.repair = repair;
+        this.deleteDanglingRows = deleteDanglingRows;
+    }
+
+    /**
+     * The outcome of a single scrub.
+     */
+    public static class Report {
+        private long blobsScanned;
+        private long rowsScanned;
+        private long orphanedBlobs;
+        private long deletedBlobs;
+        private long danglingRows;
+        private long deletedRows;
+
+        public long getBlobsScanned() { return blobsScanned; }
+        public long getRowsScanned() { return rowsScanned; }
+        public long getOrphanedBlobs() { return orphanedBlobs; }
+        public long getDeletedBlobs() { return deletedBlobs; }
+        public long getDanglingRows() { return danglingRows; }
+        public long getDeletedRows() { return deletedRows; }
+
+        @Override
+        public String toString() {
+            return String.format("blobs scanned: %d, rows scanned: %d, orphaned blobs: %d (deleted %d), dangling rows: %d (deleted %d)",
+                blobsScanned, rowsScanned, orphanedBlobs, deletedBlobs, danglingRows, deletedRows);
+        }
+    }
+
+    @Scheduled(cron = "${scrubber.cron:0 0 3 * * *}")
+    public void scheduledScrub() {
+        try {
+            scrub();
+        } catch (RuntimeException e) {
+            logger.error("Storage scrub failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a full reconciliation of the bucket and the table.
+     *
+     * @return a report of the drift that was found and repaired
+     */
+    public synchronized Report scrub() {
+        logger.info("Starting storage scrub (repair: {}, delete dangling rows: {})", repair, deleteDanglingRows);
+        Report report = new Report();
+        nextOpNanos = System.nanoTime();
+        scrubOrphanedBlobs(report);
+        scrubDanglingRows(report);
+        logger.info("Finished storage scrub: {}", report);
+        return report;
+    }
+
+    private void scrubOrphanedBlobs(Report report) {
+        scrubOrphanedBlobs(bookContentService.listBookContent(batchSize), report);
+        scrubOrphanedBlobs(bookContentService.listPagePacks(batchSize), report);
+    }
+
+    private void scrubOrphanedBlobs(Iterable<Blob> listing, Report report) {
+        List<Blob> batch = new ArrayList<>(batchSize);
+        for (Blob blob : listing) {
+            batch.add(blob);
+            if (batch.size() == batchSize) {
+                checkBlobs(batch, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            checkBlobs(batch, report);
+        }
+    }
+
+    private void checkBlobs(List<Blob> blobs, Report report) {
+        pace(2); // one listing page and one query
+        report.blobsScanned += blobs.size();
+
+        List<String> filenames = new ArrayList<>(blobs.size());
+        for (Blob blob : blobs) {
+            filenames.add(BookContentService.filenameOf(blob));
+        }
+        Set<String> referenced = new HashSet<>();
+        Set<String> referencedPagePacks = new HashSet<>();
+        for (Book book : bookRepo.findByFilenameIn(filenames)) {
+            referenced.add(book.getFileName());
+            if (book.getContentHash() != null && book.getPagePackPageSize() != null) {
+                referencedPagePacks.add(BookContentService.pagePackName(book.getContentHash(), book.getPagePackPageSize()));
+            }
+        }
+
+        long cutoff = System.currentTimeMillis() - gracePeriodMillis;
+        List<Blob> orphans = new ArrayList<>();
+        for (int i = 0; i < blobs.size(); i++) {
+            String filename = filenames.get(i);
+            Blob blob = blobs.get(i);
+            if (BookContentService.isPagePack(blob) ? referencedPagePacks.contains(blob.getName()) : referenced.contains(filename)) {
+                continue;
+            }
+            report.orphanedBlobs++;
+            // Skip fresh blobs, their row may still be on its way. Uploads of content that
+            // is already stored touch the blob, so its update time covers those too, and
+            // the delete is skipped if the blob is touched after it was listed.
+            if (BookContentService.writtenBefore(blob, cutoff)) {
+                orphans.add(blob);
+            }
+            logger.warn("Orphaned blob in cloud storage: {}", blob.getName());
+        }
+
+        if (repair && !orphans.isEmpty()) {
+            pace(orphans.size());
+            report.deletedBlobs += bookContentService.deleteOrphanedContent(orphans);
+        }
+    }
+
+    private void scrubDanglingRows(Report report) {
+        PageRequest pageRequest = PageRequest.of(0, batchSize, Sort.by("id"));
+        int lastId = Integer.MIN_VALUE;
+        Slice<Book> slice;
+        do {
+            pace(1);
+            slice = bookRepo.findByIdGreaterThan(lastId, pageRequest);
+            List<Book> rows = slice.getContent();
+            if (rows.isEmpty()) {
+                break;
+            }
+            checkRows(rows, report);
+            lastId = rows.get(rows.size() - 1).getID();
+        } while (slice.hasNext());
+    }
+
+    private void checkRows(List<Book> rows, Report report) {
+        pace(rows.size());
+        report.rowsScanned += rows.size();
+
+        List<String> filenames = new ArrayList<>(rows.size());
+        for (Book book : rows) {
+            filenames.add(book.getFileName());
+        }
+        List<Boolean> exists = bookContentService.contentExists(filenames);
+
+        List<Book> dangling = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (!exists.get(i)) {
+                Book book = rows.get(i);
+                report.danglingRows++;
+                dangling.add(book);
+                logger.warn("Book with ID: {} has no content in cloud storage: {}", book.getID(), book.getFileName());
+            }
+        }
+
+        if (deleteDanglingRows && !dangling.isEmpty()) {
+            catalogueService.deleteBooks(dangling);
+            report.deletedRows += dangling.size();
+        }
+    }
+
+    /**
+     * Blocks until {@code ops} more operations fit within the configured rate.
+     */
+    private void pace(int ops) {
+        if (maxOpsPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long waitNanos = nextOpNanos - now;
+        nextOpNanos = Math.max(nextOpNanos, now) + ops * TimeUnit.SECONDS.toNanos(1) / maxOpsPerSecond;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Storage scrub interrupted", e);
+            }
+        }
+    }
+}
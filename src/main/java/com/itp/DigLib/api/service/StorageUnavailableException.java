@@ -0,0 +1,15 @@
+package com.itp.DigLib.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when cloud storage is considered unavailable by its circuit breaker and the
+ * requested content is not cached.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StorageUnavailableException extends RuntimeException {
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.itp.DigLib.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ContentCache} that keeps a small local cache in front of a shared one, so
+ * the hottest content does not even cost a round-trip to the shared cache. Failures of
+ * the shared cache are treated as misses.
+ */
+public class TieredContentCache implements ContentCache {
+    private static final Logger logger = LoggerFactory.getLogger(TieredContentCache.class);
+
+    private final ContentCache local;
+    private final ContentCache shared;
+
+    public TieredContentCache(ContentCache local, ContentCache shared) {
+        this.local = local;
+        this.shared = shared;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        byte[] content = local.get(key);
+        if (content == null) {
+            try {
+                content = shared.get(key);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to read from shared content cache: {}", e.getMessage());
+                return null;
+            }
+            if (content != null) {
+                local.put(key, content);
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public void put(String key, byte[] content) {
+        local.put(key, content);
+        try {
+            shared.put(key, content);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write to shared content cache: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.itp.DigLib.api.service;
+
+/**
+ * Page boundaries of UTF-8 content. Page {@code n} nominally starts at byte
+ * {@code n * pageSize}. A boundary that falls inside a multi-byte character is moved
+ * back to the start of that character, so no page starts or ends mid-character. Page
+ * counts are unchanged, and pages of ASCII content are exactly the nominal slices.
+ */
+public final class Utf8Pages {
+    /**
+     * The most bytes a boundary is moved back, one less than the longest UTF-8 sequence.
+     * Reading this many bytes before a nominal boundary is enough to align it.
+     */
+    public static final int MAX_BACK_OFF = 3;
+
+    private Utf8Pages() {}
+
+    /**
+     * Moves a nominal page boundary back over UTF-8 continuation bytes.
+     *
+     * @param bytes the content, or a window of it starting at least {@link #MAX_BACK_OFF}
+     *              bytes before the boundary unless it starts at the start of the content
+     * @param position the nominal boundary, as an index into {@code bytes}; may be
+     *                 {@code bytes.length} for the end of the content
+     * @return the aligned boundary, as an index into {@code bytes}
+     */
+    public static int align(byte[] bytes, int position) {
+        int aligned = position;
+        while (aligned > 0 && aligned < bytes.length && position - aligned < MAX_BACK_OFF
+                && isContinuation(bytes[aligned])) {
+            aligned--;
+        }
+        return aligned;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+}
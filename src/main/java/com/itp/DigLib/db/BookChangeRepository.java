@@ -0,0 +1,16 @@
+package com.itp.DigLib.db;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import com.itp.DigLib.api.model.BookChange;
+
+public interface BookChangeRepository extends CrudRepository<BookChange, Long> {
+    List<BookChange> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @Query("select coalesce(max(c.id), 0) from BookChange c")
+    long findMaxId();
+}
@@ -1,17 +1,72 @@
 package com.itp.DigLib.db;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.BookChange;
 
+/**
+ * Single book lookups go through the {@code books} cache, shared between replicas when
+ * {@code spring.cache.type=redis}. Every write through this repository updates or
+ * evicts the cached entry. Lookups of missing books are not cached, so a book is found
+ * as soon as it is added.
+ */
 public interface BookRepository extends PagingAndSortingRepository<Book, Integer>, CrudRepository<Book, Integer> {
+    String CACHE_NAME = "books";
+
+    @SuppressWarnings("null")
+    @Override
+    @Cacheable(cacheNames = CACHE_NAME, key = "#p0", unless = "#result == null")
+    Optional<Book> findById(Integer id);
+
+    @SuppressWarnings("null")
+    @Override
+    @CachePut(cacheNames = CACHE_NAME, key = "#result.ID")
+    <S extends Book> S save(S book);
+
+    @SuppressWarnings("null")
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#p0")
+    void deleteById(Integer id);
+
+    @SuppressWarnings("null")
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true)
+    void deleteAll(Iterable<? extends Book> books);
+
     @SuppressWarnings("null")
     @Override
     Page<Book> findAll(Pageable pageable);
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
     Page<Book> findByAuthorContainingIgnoreCase(String author, Pageable pageable);
     Page<Book> findByGenreContainingIgnoreCase(String genre, Pageable pageable);
-}
\ No newline at end of file
+    Optional<Book> findByIsbn(String isbn);
+    List<Book> findByFilenameIn(Collection<String> filenames);
+    boolean existsByFilename(String filename);
+    Slice<Book> findByIdGreaterThan(int id, Pageable pageable);
+
+    /**
+     * Finds the IDs of books that have no change of the given type, in ID order.
+     *
+     * @param after only IDs greater than this are returned
+     * @param type the type of change
+     * @param pageable the number of IDs to return
+     * @return the IDs of the books
+     */
+    @Query("select b.id from Book b where b.id > :after and not exists "
+         + "(select c.id from BookChange c where c.bookId = b.id and c.type = :type) order by b.id")
+    List<Integer> findIdsWithoutChange(@Param("after") int after, @Param("type") BookChange.Type type, Pageable pageable);
+}
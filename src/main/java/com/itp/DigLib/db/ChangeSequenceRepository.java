@@ -0,0 +1,22 @@
+package com.itp.DigLib.db;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import com.itp.DigLib.api.model.ChangeSequence;
+
+import jakarta.persistence.LockModeType;
+
+public interface ChangeSequenceRepository extends CrudRepository<ChangeSequence, Integer> {
+    /**
+     * Reads the change sequence and locks it until the current transaction ends.
+     *
+     * @return the change sequence, empty if the change log has not been initialized
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ChangeSequence s where s.id = " + ChangeSequence.ID)
+    Optional<ChangeSequence> findForUpdate();
+}
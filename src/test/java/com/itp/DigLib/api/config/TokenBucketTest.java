@@ -0,0 +1,87 @@
+package com.itp.DigLib.api.config;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class TokenBucketTest {
+
+    @Test
+    void testBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(3, 1);
+        long now = System.nanoTime();
+
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+    }
+
+    @Test
+    void testRefill() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+        long now = System.nanoTime();
+
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(100)));
+        assertTrue(bucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(500)));
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+
+    @Test
+    void testInterceptorRejectsWith429PerClient() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor("test", "POST", 1, 0.001, 10, Set.of("client-a", "client-b"));
+
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/books");
+        first.addHeader(RateLimitInterceptor.API_KEY_HEADER, "client-a");
+        MockHttpServletRequest other = new MockHttpServletRequest("POST", "/books");
+        other.addHeader(RateLimitInterceptor.API_KEY_HEADER, "client-b");
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/books");
+        read.addHeader(RateLimitInterceptor.API_KEY_HEADER, "client-a");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(first, rejected, null));
+        assertEquals(429, rejected.getStatus());
+        assertTrue(interceptor.preHandle(other, new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(read, new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testInterceptorLimitsUnknownKeysByAddress() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor("test", null, 1, 0.001, 10, Set.of("client-a"));
+
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/books/1/content");
+        first.addHeader(RateLimitInterceptor.API_KEY_HEADER, "made-up-1");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/books/1/content");
+        second.addHeader(RateLimitInterceptor.API_KEY_HEADER, "made-up-2");
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(second, new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testInterceptorTracksAtMostMaxClients() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor("test", null, 1, 0.001, 2, Set.of());
+
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/1/content");
+            request.setRemoteAddr("10.0.0." + i);
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        }
+
+        assertTrue(interceptor.trackedClients() <= 2);
+    }
+}
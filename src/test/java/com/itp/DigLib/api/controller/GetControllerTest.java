@@ -1,28 +1,46 @@
 package com.itp.DigLib.api.controller;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.BookChange;
+import com.itp.DigLib.api.model.ChangeFeed;
+import com.itp.DigLib.api.model.ContentStats;
 import com.itp.DigLib.api.model.PagedContent;
 import com.itp.DigLib.api.service.BookContentService;
+import com.itp.DigLib.api.service.BookDownloadService;
+import com.itp.DigLib.api.service.CatalogueExportService;
+import com.itp.DigLib.db.BookChangeRepository;
 import com.itp.DigLib.db.BookRepository;
 
 public class GetControllerTest {
@@ -33,6 +51,15 @@ public class GetControllerTest {
     @Mock
     private BookContentService bookContentService;
 
+    @Mock
+    private BookChangeRepository bookChangeRepo;
+
+    @Mock
+    private CatalogueExportService catalogueExportService;
+
+    @Mock
+    private BookDownloadService bookDownloadService;
+
     @InjectMocks
     private GetController getController;
 
@@ -69,6 +96,52 @@ public class GetControllerTest {
         assertEquals("Test Book", response.getBody().getTitle());
     }
 
+    @Test
+    void testGetBookByIsbn() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setIsbn("1234567890123");
+        when(bookRepo.findByIsbn("1234567890123")).thenReturn(Optional.of(book));
+
+        ResponseEntity<Book> response = getController.getBookByIsbn("1234567890123");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Test Book", response.getBody().getTitle());
+    }
+
+    @Test
+    void testGetBookByIsbnNotFound() {
+        when(bookRepo.findByIsbn(anyString())).thenReturn(Optional.empty());
+
+        ResponseEntity<Book> response = getController.getBookByIsbn("1234567890123");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetBooksBatch() {
+        Book book1 = new Book();
+        book1.setTitle("Book 1");
+        when(bookRepo.findAllById(any())).thenReturn(Arrays.asList(book1));
+
+        ResponseEntity<List<Book>> response = getController.getBooksBatch(Arrays.asList(0, 0, 42));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+        assertEquals("Book 1", response.getBody().get(0).getTitle());
+        verify(bookRepo).findAllById(any());
+    }
+
+    @Test
+    void testGetBooksBatchRejectsInvalidSize() {
+        ResponseEntity<List<Book>> empty = getController.getBooksBatch(Collections.emptyList());
+        ResponseEntity<List<Book>> tooLarge = getController.getBooksBatch(
+            Collections.nCopies(GetController.MAX_BATCH_SIZE + 1, 1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, tooLarge.getStatusCode());
+    }
+
     @Test
     void testGetBookContent() throws Exception {
         Book book = new Book();
@@ -76,11 +149,175 @@ public class GetControllerTest {
         when(bookRepo.findById(1)).thenReturn(Optional.of(book));
 
         PagedContent pagedContent = new PagedContent("test content", 0, 1, 12, 12);
-        when(bookContentService.readBookContent(anyString(), anyInt(), any())).thenReturn(pagedContent);
+        when(bookContentService.readBookContent(any(Book.class), anyInt(), any())).thenReturn(pagedContent);
 
         ResponseEntity<PagedContent> response = getController.getBookContent(1, 0, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("test content", response.getBody().getContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetBookContentRangeFromParameters() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setStats(new ContentStats(100, 100, 20, 1));
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.contentLength(book)).thenReturn(100L);
+        when(bookContentService.readRange(anyString(), anyLong(), anyInt())).thenReturn("0123456789".getBytes());
+
+        ResponseEntity<byte[]> response = getController.getBookContentRange(1, 10L, 10, null);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 10-19/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        verify(bookContentService).readRange(book.getFileName(), 10L, 10);
+    }
+
+    @Test
+    void testGetBookContentRangeFromHeader() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.contentLength(book)).thenReturn(100L);
+        when(bookContentService.readRange(anyString(), anyLong(), anyInt())).thenReturn("56789".getBytes());
+
+        ResponseEntity<byte[]> response = getController.getBookContentRange(1, null, null, "bytes=-5");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 95-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        verify(bookContentService).readRange(book.getFileName(), 95L, 5);
+    }
+
+    @Test
+    void testGetBookContentRangeWholeContent() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.contentLength(book)).thenReturn(10L);
+        when(bookContentService.readRange(anyString(), anyLong(), anyInt())).thenReturn("0123456789".getBytes());
+
+        ResponseEntity<byte[]> response = getController.getBookContentRange(1, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void testGetBookContentRangeNotSatisfiable() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.contentLength(book)).thenReturn(100L);
+
+        ResponseEntity<byte[]> fromParameters = getController.getBookContentRange(1, 100L, 10, null);
+        ResponseEntity<byte[]> fromHeader = getController.getBookContentRange(1, null, null, "bytes=200-300");
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, fromParameters.getStatusCode());
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, fromHeader.getStatusCode());
+    }
+
+    @Test
+    void testGetBookContentRangeRejectsEmptyLength() throws Exception {
+        ResponseEntity<byte[]> empty = getController.getBookContentRange(1, 5L, 0, null);
+        ResponseEntity<byte[]> negative = getController.getBookContentRange(1, 5L, -1, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, negative.getStatusCode());
+        verify(bookContentService, never()).readRange(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetBookPageTextServesPrecompressedPage() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        byte[] compressed = {31, -117, 8, 0};
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.readPrecompressedPage(book, 0)).thenReturn(compressed);
+
+        ResponseEntity<byte[]> response = getController.getBookPageText(1, 0, "gzip, deflate, br");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(compressed, response.getBody());
+    }
+
+    @Test
+    void testGetBookPageTextFallsBackToPlainText() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.readPage(book, 0)).thenReturn("test content".getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<byte[]> response = getController.getBookPageText(1, 0, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(null, response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("test content", new String(response.getBody()));
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(GetController.acceptsGzip("gzip"));
+        assertTrue(GetController.acceptsGzip("deflate, gzip;q=0.5"));
+        assertFalse(GetController.acceptsGzip("gzip;q=0"));
+        assertFalse(GetController.acceptsGzip("br"));
+        assertFalse(GetController.acceptsGzip(null));
+    }
+
+    @Test
+    void testGetChanges() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        List<BookChange> changes = Arrays.asList(
+            new BookChange(1, 0, BookChange.Type.CREATED),
+            new BookChange(2, 7, BookChange.Type.DELETED),
+            new BookChange(3, 8, BookChange.Type.CREATED)
+        );
+        when(bookChangeRepo.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(changes);
+        when(bookRepo.findAllById(any())).thenReturn(Arrays.asList(book));
+
+        ResponseEntity<ChangeFeed> response = getController.getChanges("0", 2);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ChangeFeed feed = response.getBody();
+        assertEquals(2, feed.getChanges().size());
+        assertTrue(feed.isHasMore());
+        assertEquals("Test Book", feed.getChanges().get(0).getBook().getTitle());
+        assertEquals(BookChange.Type.DELETED, feed.getChanges().get(1).getType());
+        assertEquals(null, feed.getChanges().get(1).getBook());
+        assertEquals("2", feed.getNextToken());
+    }
+
+    @Test
+    void testGetChangesRejectsInvalidToken() {
+        assertEquals(HttpStatus.BAD_REQUEST, getController.getChanges("abc", 10).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, getController.getChanges("0", GetController.MAX_CHANGES + 1).getStatusCode());
+    }
+
+    @Test
+    void testExportBooksStreamsNdjson() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = getController.exportBooks();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(catalogueExportService).exportTo(out);
+    }
+
+    @Test
+    void testDownloadBookAsTextSetsContentLength() throws Exception {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookContentService.contentLength(book)).thenReturn(1234L);
+
+        ResponseEntity<StreamingResponseBody> text = getController.downloadBook(1, "txt");
+        ResponseEntity<StreamingResponseBody> zip = getController.downloadBook(1, "zip");
+
+        assertEquals(HttpStatus.OK, text.getStatusCode());
+        assertEquals(1234L, text.getHeaders().getContentLength());
+        assertEquals(-1L, zip.getHeaders().getContentLength());
+    }
+}
@@ -1,5 +1,7 @@
 package com.itp.DigLib.api.controller;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -7,8 +9,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
@@ -18,6 +22,7 @@ import org.springframework.mock.web.MockMultipartFile;
 
 import com.itp.DigLib.api.model.Book;
 import com.itp.DigLib.api.service.BookContentService;
+import com.itp.DigLib.api.service.CatalogueService;
 import com.itp.DigLib.db.BookRepository;
 
 public class SetControllerTest {
@@ -28,6 +33,9 @@ public class SetControllerTest {
     @Mock
     private BookContentService bookContentService;
 
+    @Mock
+    private CatalogueService catalogueService;
+
     @InjectMocks
     private SetController setController;
 
@@ -40,7 +48,7 @@ public class SetControllerTest {
     void testAddNewBook() throws Exception {
         Book book = new Book();
         book.setTitle("Test Book");
-        when(bookRepo.save(any(Book.class))).thenReturn(book);
+        when(catalogueService.addBook(any(Book.class))).thenReturn(book);
 
         MockMultipartFile content = new MockMultipartFile(
             "content",
@@ -60,8 +68,41 @@ public class SetControllerTest {
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("ID:" + book.getID(), response.getBody());
-        verify(bookRepo).save(any(Book.class));
-        verify(bookContentService).storeFile(any(), anyString());
+        verify(catalogueService).addBook(any(Book.class));
+        verify(bookContentService).storeContent(any(), anyString(), any());
+    }
+
+    @Test
+    void testAddNewBookStoresUtf8() throws Exception {
+        when(catalogueService.addBook(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        byte[] utf8 = "Café au lait".getBytes(StandardCharsets.UTF_8);
+
+        MockMultipartFile content = new MockMultipartFile(
+            "content",
+            "test.txt",
+            "text/plain",
+            "Café au lait".getBytes(Charset.forName("windows-1252"))
+        );
+
+        ResponseEntity<String> response = setController.addNewBook(
+            "Test Book",
+            "Test Author",
+            "Fiction",
+            "1234567890123",
+            2020,
+            content
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(bookContentService).storeContent(eq(utf8), eq(BookContentService.contentHash(utf8) + ".txt"), anyString());
+    }
+
+    @Test
+    void testDeclaredCharset() {
+        assertEquals(StandardCharsets.ISO_8859_1, SetController.declaredCharset("text/plain; charset=ISO-8859-1"));
+        assertEquals(null, SetController.declaredCharset("text/plain"));
+        assertEquals(null, SetController.declaredCharset("text/plain; charset=no-such-charset"));
+        assertEquals(null, SetController.declaredCharset(null));
     }
 
     @Test
@@ -74,7 +115,38 @@ public class SetControllerTest {
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Book deleted successfully", response.getBody());
-        verify(bookRepo).deleteById(1);
+        verify(catalogueService).deleteBook(book);
         verify(bookContentService).deleteBookContent(anyString());
     }
+
+    @Test
+    void testDeleteBookReclaimsUnreferencedContent() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setContentHash(BookContentService.contentHash("test content".getBytes()));
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookRepo.existsByFilename(book.getFileName())).thenReturn(false);
+
+        ResponseEntity<String> response = setController.deleteBook(1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(catalogueService).deleteBook(book);
+        verify(bookContentService).deleteUnreferencedContent(book.getFileName());
+        verify(bookContentService, never()).deleteBookContent(anyString());
+    }
+
+    @Test
+    void testDeleteBookKeepsSharedContent() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setContentHash(BookContentService.contentHash("test content".getBytes()));
+        when(bookRepo.findById(1)).thenReturn(Optional.of(book));
+        when(bookRepo.existsByFilename(book.getFileName())).thenReturn(true);
+
+        ResponseEntity<String> response = setController.deleteBook(1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(bookContentService, never()).deleteUnreferencedContent(anyString());
+        verify(bookContentService, never()).deleteBookContent(anyString());
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.itp.DigLib.api.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -83,6 +84,20 @@ public class BookTest {
         assertTrue(exception.getMessage().contains("Author cannot be empty"));
     }
 
+    @Test
+    void testContentHashReplacesFileName() {
+        String hash = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+        book.setContentHash(hash);
+        book.setTitle("The Great Gatsby");
+
+        assertEquals(hash, book.getContentHash());
+        assertEquals(hash + ".txt", book.getFileName());
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            book.setContentHash("not a hash");
+        });
+    }
+
     @Test
     void testToCamelCase() {
         assertEquals("TheGreatGatsby", Book.toCamelCase("the great gatsby"));
@@ -108,4 +123,16 @@ ISBN: 1234567890123
 Year: 2020""";
         assertEquals(expectedMetadata, book.getMetadata());
     }
+
+    @Test
+    void testPrecompressedOnlyForRecordedPageSize() {
+        assertFalse(book.isPrecompressed(1000));
+
+        book.setPagePackPageSize(1000);
+        assertFalse(book.isPrecompressed(1000), "only content addressed content has page packs");
+
+        book.setContentHash("0".repeat(64));
+        assertTrue(book.isPrecompressed(1000));
+        assertFalse(book.isPrecompressed(2000));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.itp.DigLib.api.model;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class ContentStatsTest {
+
+    @Test
+    void testStatsOfPlainText() {
+        byte[] content = "First line of text.\nSecond line\n".getBytes(StandardCharsets.UTF_8);
+
+        ContentStats stats = ContentStats.of(content);
+
+        assertEquals(content.length, stats.getByteLength());
+        assertEquals(32, stats.getCharCount());
+        assertEquals(6, stats.getWordCount());
+        assertEquals(2, stats.getLineCount());
+        assertEquals(0, stats.getReadingMinutes());
+    }
+
+    @Test
+    void testStatsCountUnterminatedLastLine() {
+        ContentStats stats = ContentStats.of("one\ntwo".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, stats.getLineCount());
+        assertEquals(2, stats.getWordCount());
+    }
+
+    @Test
+    void testStatsOfMultiByteText() {
+        byte[] content = "blåbærsyltetøy".getBytes(StandardCharsets.UTF_8);
+
+        ContentStats stats = ContentStats.of(content);
+
+        assertEquals(17, stats.getByteLength());
+        assertEquals(14, stats.getCharCount());
+        assertEquals(1, stats.getWordCount());
+    }
+
+    @Test
+    void testStatsOfEmptyContent() {
+        ContentStats stats = ContentStats.of(new byte[0]);
+
+        assertEquals(0, stats.getByteLength());
+        assertEquals(0, stats.getWordCount());
+        assertEquals(0, stats.getLineCount());
+        assertEquals(0, stats.getPageCount(1000));
+    }
+
+    @Test
+    void testReadingMinutes() {
+        ContentStats stats = new ContentStats(100000, 100000, ContentStats.WORDS_PER_MINUTE * 90, 100);
+
+        assertEquals(90, stats.getReadingMinutes());
+        assertEquals("1 hours, 30 minutes",
+            new PagedContent("", 0, 1, 0, 100000, stats.getReadingMinutes()).getReadingTime());
+    }
+
+    @Test
+    void testPageCounts() {
+        ContentStats stats = new ContentStats(2500, 2500, 400, 50);
+
+        assertEquals(3, stats.getPageCount(1000));
+        assertEquals(5, stats.getPageCount(500));
+        assertEquals(1, stats.getPageCounts().get(5000));
+        assertEquals(ContentStats.SUPPORTED_PAGE_SIZES.length, stats.getPageCounts().size());
+        assertThrows(IllegalArgumentException.class, () -> stats.getPageCount(0));
+    }
+}
@@ -0,0 +1,58 @@
+package com.itp.DigLib.api.profiling;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ContinuousRecordingTest {
+
+    @Test
+    void testDumpContainsContentEvents() throws Exception {
+        ContinuousRecording recording = new ContinuousRecording("default", Duration.ofMinutes(5), 16 * 1024 * 1024, Duration.ZERO);
+        try {
+            ContentReadEvent event = new ContentReadEvent("readRange", "book.txt", 100);
+            event.begin();
+            event.bytes = 1000;
+            event.commit();
+
+            Path file = recording.dump();
+            try {
+                List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(recorded -> recorded.getEventType().getName().equals("diglib.ContentRead"))
+                    .toList();
+                assertEquals(1, events.size());
+                assertEquals("book.txt", events.get(0).getString("filename"));
+                assertEquals(1000, events.get(0).getLong("bytes"));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } finally {
+            recording.close();
+        }
+    }
+
+    @Test
+    void testDumpLeavesOutEnvironmentAndSystemProperties() throws Exception {
+        ContinuousRecording recording = new ContinuousRecording("profile", Duration.ofMinutes(5), 16 * 1024 * 1024, Duration.ZERO);
+        try {
+            Path file = recording.dump();
+            try {
+                List<String> sensitive = List.of(ContinuousRecording.SENSITIVE_EVENTS);
+                assertTrue(RecordingFile.readAllEvents(file).stream()
+                    .noneMatch(recorded -> sensitive.contains(recorded.getEventType().getName())));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } finally {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.itp.DigLib.api.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ProfilingAccessInterceptorTest {
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/profiling/recording");
+        if (token != null) {
+            request.addHeader(ProfilingAccessInterceptor.TOKEN_HEADER, token);
+        }
+        return request;
+    }
+
+    @Test
+    void testAllowsConfiguredToken() {
+        ProfilingAccessInterceptor interceptor = new ProfilingAccessInterceptor("secret");
+
+        assertTrue(interceptor.preHandle(request("secret"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testRejectsMissingOrWrongToken() {
+        ProfilingAccessInterceptor interceptor = new ProfilingAccessInterceptor("secret");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request(null), response, null));
+        assertEquals(403, response.getStatus());
+        assertFalse(interceptor.preHandle(request("guess"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testRejectsEverythingWithoutConfiguredToken() {
+        ProfilingAccessInterceptor interceptor = new ProfilingAccessInterceptor("");
+
+        assertFalse(interceptor.preHandle(request(""), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(request(null), new MockHttpServletResponse(), null));
+    }
+}
@@ -0,0 +1,67 @@
+package com.itp.DigLib.api.profiling;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class ProfilingInterceptorTest {
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/1/content");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    @Test
+    void testTotalsPerEndpoint() {
+        ProfilingInterceptor interceptor = new ProfilingInterceptor();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = request("/books/{id}/content");
+            interceptor.preHandle(request, response, null);
+            byte[][] garbage = new byte[64][];
+            for (int j = 0; j < garbage.length; j++) {
+                garbage[j] = new byte[1024];
+            }
+            interceptor.afterCompletion(request, response, null, null);
+        }
+        MockHttpServletRequest other = request("/books");
+        interceptor.preHandle(other, response, null);
+        interceptor.afterCompletion(other, response, null, null);
+
+        List<ProfilingInterceptor.EndpointProfile> profiles = interceptor.getEndpointProfiles();
+        assertEquals(2, profiles.size());
+        ProfilingInterceptor.EndpointProfile content = profiles.stream()
+            .filter(profile -> profile.getEndpoint().equals("GET /books/{id}/content"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(3, content.getRequests());
+        assertTrue(content.getAllocatedBytesPerRequest() >= 64 * 1024);
+    }
+
+    @Test
+    void testRequestIsRecordedOnce() {
+        ProfilingInterceptor interceptor = new ProfilingInterceptor();
+        MockHttpServletRequest request = request("/books/{id}/download");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertEquals(1, interceptor.getEndpointProfiles().get(0).getRequests());
+    }
+
+    @Test
+    void testUnmappedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/nowhere");
+
+        assertEquals("POST (unmapped)", ProfilingInterceptor.endpoint(request));
+    }
+}
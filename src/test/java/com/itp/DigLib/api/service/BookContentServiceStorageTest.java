@@ -0,0 +1,258 @@
+package com.itp.DigLib.api.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageBatchResult;
+import com.google.cloud.storage.StorageException;
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.ContentStats;
+
+/**
+ * Tests of {@link BookContentService} against a mocked cloud storage client.
+ */
+public class BookContentServiceStorageTest {
+    private static final String BUCKET = "test-bucket";
+    private static final String FILENAME = BookContentService.contentHash("shared content".getBytes()) + ".txt";
+
+    @Mock
+    private Storage storage;
+
+    @Mock
+    private StorageBatch batch;
+
+    private ExecutorService executor;
+    private CircuitBreaker circuitBreaker;
+    private BookContentService bookContentService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = Executors.newCachedThreadPool();
+        circuitBreaker = new CircuitBreaker("cloud-storage", 2, 60000);
+        bookContentService = service(64, false);
+        when(storage.batch()).thenReturn(batch);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private BookContentService service(int maxConcurrentFetches, boolean hedgedReads) {
+        return new BookContentService(storage, new LocalContentCache(1024 * 1024), null,
+            circuitBreaker, executor, BUCKET, 10, maxConcurrentFetches, 50, hedgedReads, 20, 5000, 60);
+    }
+
+    /**
+     * A reader that waits for {@code delayMillis}, or until {@code release} opens, before
+     * returning the bytes of {@code content} from the position it was seeked to.
+     */
+    private static ReadChannel reader(byte[] content, long delayMillis, CountDownLatch release) throws IOException {
+        ReadChannel reader = mock(ReadChannel.class);
+        long[] position = new long[1];
+        doAnswer(invocation -> {
+            position[0] = invocation.getArgument(0);
+            return null;
+        }).when(reader).seek(anyLong());
+        when(reader.read(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            } else {
+                Thread.sleep(delayMillis);
+            }
+            ByteBuffer buffer = invocation.getArgument(0);
+            int length = (int) Math.min(buffer.remaining(), content.length - position[0]);
+            if (length <= 0) {
+                return -1;
+            }
+            buffer.put(content, (int) position[0], length);
+            position[0] += length;
+            return length;
+        });
+        return reader;
+    }
+
+    private static Blob blob(String name, OffsetDateTime updated) {
+        Blob blob = mock(Blob.class);
+        when(blob.getName()).thenReturn(name);
+        when(blob.getGeneration()).thenReturn(7L);
+        when(blob.getMetageneration()).thenReturn(3L);
+        when(blob.getUpdateTimeOffsetDateTime()).thenReturn(updated);
+        return blob;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StorageBatchResult<Boolean> result(Boolean deleted, StorageException error) {
+        StorageBatchResult<Boolean> result = mock(StorageBatchResult.class);
+        if (error != null) {
+            when(result.get()).thenThrow(error);
+        } else {
+            when(result.get()).thenReturn(deleted);
+        }
+        return result;
+    }
+
+    @Test
+    void testDeleteOrphanedContentSkipsBlobsTouchedSinceListing() {
+        Blob unchanged = blob("books/unchanged.txt", OffsetDateTime.now().minusDays(1));
+        Blob touched = blob("books/touched.txt", OffsetDateTime.now().minusDays(1));
+        StorageBatchResult<Boolean> deleted = result(true, null);
+        StorageBatchResult<Boolean> failed = result(null, new StorageException(412, "Precondition Failed"));
+        when(batch.delete(eq(BlobId.of(BUCKET, "books/unchanged.txt")), any(), any())).thenReturn(deleted);
+        when(batch.delete(eq(BlobId.of(BUCKET, "books/touched.txt")), any(), any())).thenReturn(failed);
+
+        assertEquals(1, bookContentService.deleteOrphanedContent(List.of(unchanged, touched)));
+        verify(batch).delete(BlobId.of(BUCKET, "books/unchanged.txt"),
+            Storage.BlobSourceOption.generationMatch(7L), Storage.BlobSourceOption.metagenerationMatch(3L));
+        verify(batch).submit();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listPagePacks(Blob... pagePacks) {
+        Page<Blob> page = mock(Page.class);
+        when(page.iterateAll()).thenReturn(List.of(pagePacks));
+        when(storage.list(eq(BUCKET), any(Storage.BlobListOption.class))).thenReturn(page);
+    }
+
+    @Test
+    void testDeleteUnreferencedContentDeletesSettledContentAndPagePacks() {
+        String pagePackName = BookContentService.pagePackName(FILENAME.substring(0, 64), 1000);
+        Blob pagePack = blob(pagePackName, OffsetDateTime.now().minusDays(1));
+        listPagePacks(pagePack);
+        Blob settled = blob("books/" + FILENAME, OffsetDateTime.now().minusDays(1));
+        when(storage.get(BlobId.of(BUCKET, "books/" + FILENAME))).thenReturn(settled);
+        StorageBatchResult<Boolean> deletedContent = result(true, null);
+        StorageBatchResult<Boolean> deletedPagePack = result(true, null);
+        when(batch.delete(eq(BlobId.of(BUCKET, "books/" + FILENAME)), any(), any())).thenReturn(deletedContent);
+        when(batch.delete(eq(BlobId.of(BUCKET, pagePackName)), any(), any())).thenReturn(deletedPagePack);
+
+        assertTrue(bookContentService.deleteUnreferencedContent(FILENAME));
+        verify(batch).delete(eq(BlobId.of(BUCKET, pagePackName)), any(), any());
+    }
+
+    @Test
+    void testDeleteUnreferencedContentLeavesRecentlyTouchedContent() {
+        listPagePacks(blob(BookContentService.pagePackName(FILENAME.substring(0, 64), 1000), OffsetDateTime.now()));
+        Blob fresh = blob("books/" + FILENAME, OffsetDateTime.now());
+        when(storage.get(BlobId.of(BUCKET, "books/" + FILENAME))).thenReturn(fresh);
+
+        assertFalse(bookContentService.deleteUnreferencedContent(FILENAME));
+        verify(storage, never()).batch();
+    }
+
+    @Test
+    void testSlowReadIsHedgedByFasterRead() throws Exception {
+        bookContentService = service(64, true);
+        byte[] content = "0123456789".getBytes();
+        ReadChannel slow = reader(content, 3000, null);
+        ReadChannel fast = reader(content, 0, null);
+        when(storage.reader(BlobId.of(BUCKET, "books/legacy.txt"))).thenReturn(slow, fast);
+
+        long start = System.nanoTime();
+        byte[] range = bookContentService.readRange("legacy.txt", 2, 5);
+
+        assertArrayEquals("23456".getBytes(), range);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, "the hedge should win");
+        verify(storage, times(2)).reader(BlobId.of(BUCKET, "books/legacy.txt"));
+    }
+
+    @Test
+    void testOpenCircuitBreakerServesOnlyCachedRanges() throws Exception {
+        byte[] content = "0123456789".getBytes();
+        when(storage.reader(BlobId.of(BUCKET, "books/" + FILENAME))).thenAnswer(invocation -> reader(content, 0, null));
+        assertArrayEquals("0123".getBytes(), bookContentService.readRange(FILENAME, 0, 4));
+
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+
+        assertArrayEquals("0123".getBytes(), bookContentService.readRange(FILENAME, 0, 4));
+        assertThrows(StorageUnavailableException.class, () -> bookContentService.readRange(FILENAME, 4, 4));
+        verify(storage, times(1)).reader(any(BlobId.class));
+    }
+
+    @Test
+    void testFullBulkheadRejectsFetch() throws Exception {
+        bookContentService = service(1, false);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(storage.reader(any(BlobId.class))).thenAnswer(invocation -> {
+            started.countDown();
+            return reader("0123456789".getBytes(), 0, release);
+        });
+
+        Future<byte[]> holding = executor.submit(() -> bookContentService.readRange("first.txt", 0, 4));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        try {
+            assertThrows(StorageBusyException.class, () -> bookContentService.readRange("second.txt", 0, 4));
+        } finally {
+            release.countDown();
+        }
+        assertArrayEquals("0123".getBytes(), holding.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testContentLengthGoesThroughCircuitBreaker() {
+        Book book = new Book();
+        book.setTitle("Test Book");
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+
+        assertThrows(StorageUnavailableException.class, () -> bookContentService.contentLength(book));
+        verify(storage, never()).get(any(BlobId.class));
+    }
+
+    @Test
+    void testPagesOfRangedReadsDoNotSplitCharacters() throws Exception {
+        String text = "aaaaaaaaaé" + "bbbbbbb€x" + "c";
+        byte[] content = text.getBytes(StandardCharsets.UTF_8);
+        when(storage.reader(BlobId.of(BUCKET, "books/" + FILENAME))).thenAnswer(invocation -> reader(content, 0, null));
+        Book book = new Book();
+        book.setTitle("Test Book");
+        book.setContentHash(FILENAME.substring(0, 64));
+        book.setStats(ContentStats.of(content));
+
+        StringBuilder joined = new StringBuilder();
+        int pages = book.getStats().getPageCount(10);
+        for (int page = 0; page < pages; page++) {
+            String decoded = bookContentService.readBookContent(book, page, 10).getContent();
+            assertEquals(-1, decoded.indexOf('\uFFFD'));
+            joined.append(decoded);
+        }
+        assertEquals(text, joined.toString());
+    }
+}
@@ -0,0 +1,109 @@
+package com.itp.DigLib.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.itp.DigLib.api.model.Book;
+
+public class BookDownloadServiceTest {
+    private static final byte[] CONTENT = "The whole book, chunk by chunk.".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private BookContentService bookContentService;
+
+    private ExecutorService executor;
+    private BookDownloadService downloadService;
+    private Book book;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        executor = Executors.newFixedThreadPool(2);
+        downloadService = new BookDownloadService(bookContentService, executor, 4, 3);
+
+        book = new Book();
+        book.setTitle("Test Book");
+        book.setAuthor("Test Author");
+        book.setGenre("Test Genre");
+        book.setIsbn("1234567890123");
+        book.setYear(2020);
+        when(bookContentService.contentLength(book)).thenReturn((long) CONTENT.length);
+        when(bookContentService.readRange(anyString(), anyLong(), anyInt(), eq(false))).thenAnswer(invocation -> {
+            int from = ((Long) invocation.getArgument(1)).intValue();
+            int length = invocation.getArgument(2);
+            return Arrays.copyOfRange(CONTENT, from, from + length);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testTextDownloadAssemblesChunksInOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        downloadService.download(book, BookDownloadService.Format.TXT, out);
+
+        assertEquals(new String(CONTENT, StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testZipDownloadContainsContentAndMetadata() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        downloadService.download(book, BookDownloadService.Format.ZIP, out);
+
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry content = zip.getNextEntry();
+            assertEquals("TestBook.txt", content.getName());
+            assertEquals(new String(CONTENT, StandardCharsets.UTF_8), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+
+            ZipEntry metadata = zip.getNextEntry();
+            assertEquals("metadata.txt", metadata.getName());
+            assertEquals(book.getMetadata(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    void testFailedChunkFailsDownload() throws IOException {
+        when(bookContentService.readRange(anyString(), anyLong(), anyInt(), eq(false))).thenThrow(new IOException("File not found in cloud storage"));
+
+        assertThrows(IOException.class, () -> downloadService.download(book, BookDownloadService.Format.TXT, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void testDownloadNameCannotHoldPath() {
+        book.setTitle("../../etc passwd");
+        assertEquals("______etcPasswd.zip", BookDownloadService.downloadName(book, BookDownloadService.Format.ZIP));
+
+        book.setTitle("/");
+        assertEquals("_.txt", BookDownloadService.downloadName(book, BookDownloadService.Format.TXT));
+
+        book.setTitle("..");
+        assertEquals("__.txt", BookDownloadService.downloadName(book, BookDownloadService.Format.TXT));
+    }
+}
@@ -0,0 +1,53 @@
+package com.itp.DigLib.api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.db.BookRepository;
+
+import jakarta.persistence.EntityManager;
+
+public class CatalogueExportServiceTest {
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        return book;
+    }
+
+    @Test
+    void testExportsEveryPageAsNdjson() {
+        BookRepository bookRepo = mock(BookRepository.class);
+        Book first = book("First");
+        Book second = book("Second");
+        when(bookRepo.findByIdGreaterThan(eq(Integer.MIN_VALUE), any()))
+            .thenReturn(new SliceImpl<>(Arrays.asList(first), PageRequest.of(0, 1), true));
+        when(bookRepo.findByIdGreaterThan(eq(first.getID()), any()))
+            .thenReturn(new SliceImpl<>(Arrays.asList(second)));
+        CatalogueExportService exportService = new CatalogueExportService(bookRepo, mock(EntityManager.class), new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = exportService.exportTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, exported);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"First\""));
+        assertTrue(lines[1].contains("\"Second\""));
+        verify(bookRepo).findByIdGreaterThan(eq(Integer.MIN_VALUE), any());
+    }
+}
@@ -0,0 +1,71 @@
+package com.itp.DigLib.api.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.api.model.BookChange;
+import com.itp.DigLib.api.model.ChangeSequence;
+import com.itp.DigLib.db.BookChangeRepository;
+import com.itp.DigLib.db.BookRepository;
+import com.itp.DigLib.db.ChangeSequenceRepository;
+
+public class CatalogueServiceTest {
+
+    @Mock
+    private BookRepository bookRepo;
+
+    @Mock
+    private BookChangeRepository bookChangeRepo;
+
+    @Mock
+    private ChangeSequenceRepository changeSequenceRepo;
+
+    @InjectMocks
+    private CatalogueService catalogueService;
+
+    private final ChangeSequence sequence = new ChangeSequence(41);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(changeSequenceRepo.findForUpdate()).thenReturn(Optional.of(sequence));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangeIdsComeFromTheSequence() {
+        when(bookRepo.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        catalogueService.addBook(new Book());
+        catalogueService.deleteBooks(Arrays.asList(new Book(), new Book()));
+
+        ArgumentCaptor<BookChange> created = ArgumentCaptor.forClass(BookChange.class);
+        verify(bookChangeRepo).save(created.capture());
+        assertEquals(42, created.getValue().getId());
+        ArgumentCaptor<List<BookChange>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(bookChangeRepo).saveAll(deleted.capture());
+        assertEquals(43, deleted.getValue().get(0).getId());
+        assertEquals(44, deleted.getValue().get(1).getId());
+        assertEquals(44, sequence.getLastValue());
+    }
+
+    @Test
+    void testWritesFailWithoutChangeLog() {
+        when(changeSequenceRepo.findForUpdate()).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> catalogueService.deleteBook(new Book()));
+    }
+}
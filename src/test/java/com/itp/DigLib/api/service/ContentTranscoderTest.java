@@ -0,0 +1,84 @@
+package com.itp.DigLib.api.service;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class ContentTranscoderTest {
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    @Test
+    void testNormalizedUtf8IsNotCopied() {
+        byte[] content = "Blåbærsyltetøy og “sitater”".getBytes(StandardCharsets.UTF_8);
+
+        ContentTranscoder.Result result = ContentTranscoder.transcode(content, null, WINDOWS_1252);
+
+        assertSame(content, result.getContent());
+        assertEquals(StandardCharsets.UTF_8, result.getSourceEncoding());
+        assertFalse(result.isTranscoded());
+    }
+
+    @Test
+    void testInvalidUtf8FallsBack() {
+        byte[] content = "Café “quoted”".getBytes(WINDOWS_1252);
+
+        ContentTranscoder.Result result = ContentTranscoder.transcode(content, null, WINDOWS_1252);
+
+        assertEquals("Café “quoted”", new String(result.getContent(), StandardCharsets.UTF_8));
+        assertEquals(WINDOWS_1252, result.getSourceEncoding());
+        assertTrue(result.isTranscoded());
+    }
+
+    @Test
+    void testByteOrderMarkIsDetectedAndStripped() {
+        byte[] utf16 = "\uFEFFHello, wörld".getBytes(StandardCharsets.UTF_16LE);
+        byte[] utf8 = "\uFEFFHello, wörld".getBytes(StandardCharsets.UTF_8);
+
+        ContentTranscoder.Result fromUtf16 = ContentTranscoder.transcode(utf16, null, WINDOWS_1252);
+        ContentTranscoder.Result fromUtf8 = ContentTranscoder.transcode(utf8, WINDOWS_1252, WINDOWS_1252);
+
+        assertEquals(StandardCharsets.UTF_16LE, fromUtf16.getSourceEncoding());
+        assertArrayEquals("Hello, wörld".getBytes(StandardCharsets.UTF_8), fromUtf16.getContent());
+        assertEquals(StandardCharsets.UTF_8, fromUtf8.getSourceEncoding());
+        assertArrayEquals("Hello, wörld".getBytes(StandardCharsets.UTF_8), fromUtf8.getContent());
+    }
+
+    @Test
+    void testDeclaredCharsetIsUsed() {
+        byte[] content = "Grüße".getBytes(StandardCharsets.ISO_8859_1);
+
+        ContentTranscoder.Result result = ContentTranscoder.transcode(content, StandardCharsets.ISO_8859_1, WINDOWS_1252);
+
+        assertEquals("Grüße", new String(result.getContent(), StandardCharsets.UTF_8));
+        assertEquals(StandardCharsets.ISO_8859_1, result.getSourceEncoding());
+    }
+
+    @Test
+    void testContentIsNormalizedAcrossChunks() {
+        // Decomposed "é" repeated well past a single decoding chunk
+        String decomposed = "Cafe\u0301 ".repeat(5000);
+
+        ContentTranscoder.Result result = ContentTranscoder.transcode(
+            decomposed.getBytes(StandardCharsets.UTF_8), null, WINDOWS_1252);
+
+        assertEquals("Caf\u00E9 ".repeat(5000), new String(result.getContent(), StandardCharsets.UTF_8));
+        assertEquals(StandardCharsets.UTF_8, result.getSourceEncoding());
+        assertTrue(result.isTranscoded());
+    }
+
+    @Test
+    void testInvalidDeclaredContentIsRejected() {
+        byte[] content = {(byte) 0xC3, (byte) 0x28};
+
+        assertThrows(IllegalArgumentException.class,
+            () -> ContentTranscoder.transcode(content, StandardCharsets.UTF_8, WINDOWS_1252));
+    }
+}
@@ -0,0 +1,30 @@
+package com.itp.DigLib.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+public class LocalContentCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        LocalContentCache cache = new LocalContentCache(10);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.get("a");
+        cache.put("c", new byte[4]);
+
+        assertNull(cache.get("b"));
+        assertEquals(4, cache.get("a").length);
+        assertEquals(8, cache.getCurrentBytes());
+    }
+
+    @Test
+    void testSkipsContentLargerThanCache() {
+        LocalContentCache cache = new LocalContentCache(10);
+        cache.put("large", new byte[11]);
+
+        assertNull(cache.get("large"));
+        assertEquals(0, cache.getCurrentBytes());
+    }
+}
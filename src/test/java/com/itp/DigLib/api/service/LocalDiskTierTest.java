@@ -0,0 +1,102 @@
+package com.itp.DigLib.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LocalDiskTierTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static LocalDiskTier.Loader content(String text) {
+        return target -> Files.write(target, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void readTimes(LocalDiskTier tier, String filename, int times) {
+        for (int i = 0; i < times; i++) {
+            tier.read(filename, 0, 1);
+        }
+    }
+
+    @Test
+    void testAdmitsPopularFiles() throws Exception {
+        LocalDiskTier tier = new LocalDiskTier(tempDir, 100, 3, 1000);
+
+        readTimes(tier, "a.txt", 2);
+        assertFalse(tier.wantsAdmission("a.txt"));
+        readTimes(tier, "a.txt", 1);
+        assertTrue(tier.wantsAdmission("a.txt"));
+        assertFalse(tier.wantsAdmission("a.txt"), "a file is loaded only once");
+
+        assertTrue(tier.admit("a.txt", content("hello world")));
+        assertEquals("world", new String(tier.read("a.txt", 6, 10), StandardCharsets.UTF_8));
+        assertEquals(11, tier.getUsedBytes());
+    }
+
+    @Test
+    void testEvictsOnlyLessPopularFiles() throws Exception {
+        LocalDiskTier tier = new LocalDiskTier(tempDir, 10, 1, 1000);
+        readTimes(tier, "hot.txt", 5);
+        tier.wantsAdmission("hot.txt");
+        tier.admit("hot.txt", content("0123456789"));
+
+        readTimes(tier, "cold.txt", 2);
+        assertFalse(tier.wantsAdmission("cold.txt"));
+
+        readTimes(tier, "hotter.txt", 9);
+        assertTrue(tier.wantsAdmission("hotter.txt"));
+        assertTrue(tier.admit("hotter.txt", content("abcdefghij")));
+        assertFalse(tier.contains("hot.txt"));
+        assertTrue(tier.contains("hotter.txt"));
+        assertEquals(10, tier.getUsedBytes());
+    }
+
+    @Test
+    void testCountersAndFilesSurviveRestart() throws Exception {
+        LocalDiskTier tier = new LocalDiskTier(tempDir, 100, 2, 1000);
+        readTimes(tier, "a.txt", 4);
+        tier.wantsAdmission("a.txt");
+        tier.admit("a.txt", content("hello"));
+        tier.close();
+
+        LocalDiskTier restarted = new LocalDiskTier(tempDir, 100, 2, 1000);
+
+        assertTrue(restarted.contains("a.txt"));
+        assertEquals(5, restarted.getUsedBytes());
+        // The read counted below is on top of the four from before the restart
+        assertEquals("hello", new String(restarted.read("a.txt", 0, 10), StandardCharsets.UTF_8));
+        assertEquals(5, restarted.popularity("a.txt"));
+    }
+
+    @Test
+    void testCountersDecay() throws Exception {
+        LocalDiskTier tier = new LocalDiskTier(tempDir, 100, 2, 4);
+        readTimes(tier, "a.txt", 3);
+        readTimes(tier, "b.txt", 1);
+
+        assertEquals(1, tier.popularity("a.txt"));
+        assertEquals(0, tier.popularity("b.txt"));
+    }
+
+    @Test
+    void testEvictDeletesFile() throws Exception {
+        LocalDiskTier tier = new LocalDiskTier(tempDir, 100, 1, 1000);
+        readTimes(tier, "a.txt", 1);
+        tier.wantsAdmission("a.txt");
+        tier.admit("a.txt", content("hello"));
+
+        tier.evict("a.txt");
+
+        assertNull(tier.read("a.txt", 0, 5));
+        assertFalse(Files.exists(tempDir.resolve("a.txt")));
+        assertEquals(0, tier.getUsedBytes());
+    }
+}
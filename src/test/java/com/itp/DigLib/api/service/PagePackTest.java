@@ -0,0 +1,62 @@
+package com.itp.DigLib.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+public class PagePackTest {
+    private static final String CONTENT = "First page content.\nSecond page content.\nLast";
+
+    @Test
+    void testEveryPageDecompressesToItsSlice() throws IOException {
+        byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        byte[] pack = PagePack.build(content, 20);
+        ByteBuffer buffer = ByteBuffer.wrap(pack);
+
+        assertEquals(3, buffer.getInt(0));
+        for (int page = 0; page < 3; page++) {
+            int start = buffer.getInt(PagePack.offsetPosition(page));
+            int end = buffer.getInt(PagePack.offsetPosition(page) + Integer.BYTES);
+            int sliceEnd = Math.min(content.length, (page + 1) * 20);
+
+            assertEquals(CONTENT.substring(page * 20, sliceEnd), gunzip(pack, start, end - start));
+        }
+        assertEquals(pack.length, buffer.getInt(PagePack.offsetPosition(3)));
+    }
+
+    @Test
+    void testEmptyContent() {
+        byte[] pack = PagePack.build(new byte[0], 20);
+
+        assertEquals(0, ByteBuffer.wrap(pack).getInt(0));
+        assertEquals(pack.length, ByteBuffer.wrap(pack).getInt(PagePack.offsetPosition(0)));
+    }
+
+    private static String gunzip(byte[] pack, int offset, int length) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(pack, offset, length))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testPagesDoNotSplitCharacters() throws IOException {
+        String text = "aaaaaaaaaaaaaaaaaaaé" + "bbbbbbbbbbbbbbbbbb€x";
+        byte[] pack = PagePack.build(text.getBytes(StandardCharsets.UTF_8), 20);
+        ByteBuffer buffer = ByteBuffer.wrap(pack);
+
+        StringBuilder joined = new StringBuilder();
+        for (int page = 0; page < buffer.getInt(0); page++) {
+            int start = buffer.getInt(PagePack.offsetPosition(page));
+            int end = buffer.getInt(PagePack.offsetPosition(page) + Integer.BYTES);
+            String decoded = gunzip(pack, start, end - start);
+            assertEquals(-1, decoded.indexOf('\uFFFD'));
+            joined.append(decoded);
+        }
+        assertEquals(text, joined.toString());
+    }
+}
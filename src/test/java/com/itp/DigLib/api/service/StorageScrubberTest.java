@@ -0,0 +1,113 @@
+package com.itp.DigLib.api.service;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.SliceImpl;
+
+import com.google.cloud.storage.Blob;
+import com.itp.DigLib.api.model.Book;
+import com.itp.DigLib.db.BookRepository;
+
+public class StorageScrubberTest {
+
+    @Mock
+    private BookRepository bookRepo;
+
+    @Mock
+    private BookContentService bookContentService;
+
+    @Mock
+    private CatalogueService catalogueService;
+
+    private Book referencedBook;
+    private Book danglingBook;
+    private Blob orphan;
+    private Blob stalePagePack;
+    private Blob orphanedPagePack;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        referencedBook = new Book();
+        referencedBook.setTitle("Referenced");
+        String contentHash = BookContentService.contentHash("referenced".getBytes());
+        referencedBook.setContentHash(contentHash);
+        referencedBook.setPagePackPageSize(1000);
+        danglingBook = new Book();
+        danglingBook.setTitle("Dangling");
+
+        OffsetDateTime old = OffsetDateTime.now().minusDays(1);
+        orphan = blob("books/orphan.txt", old);
+        List<Blob> blobs = Arrays.asList(
+            blob("books/" + referencedBook.getFileName(), old),
+            orphan,
+            blob("books/fresh.txt", OffsetDateTime.now())
+        );
+        when(bookContentService.listBookContent(anyInt())).thenReturn(blobs);
+        stalePagePack = blob(BookContentService.pagePackName(contentHash, 500), old);
+        orphanedPagePack = blob(BookContentService.pagePackName(BookContentService.contentHash("orphan".getBytes()), 1000), old);
+        List<Blob> pagePacks = Arrays.asList(
+            blob(BookContentService.pagePackName(contentHash, 1000), old),
+            stalePagePack,
+            orphanedPagePack
+        );
+        when(bookContentService.listPagePacks(anyInt())).thenReturn(pagePacks);
+        when(bookRepo.findByFilenameIn(any())).thenReturn(Collections.singletonList(referencedBook));
+        when(bookRepo.findByIdGreaterThan(anyInt(), any()))
+            .thenReturn(new SliceImpl<>(Arrays.asList(referencedBook, danglingBook)));
+        when(bookContentService.contentExists(anyList())).thenReturn(Arrays.asList(true, false));
+        when(bookContentService.deleteOrphanedContent(anyList())).thenReturn(1);
+    }
+
+    private static Blob blob(String name, OffsetDateTime updateTime) {
+        Blob blob = mock(Blob.class);
+        when(blob.getName()).thenReturn(name);
+        when(blob.getCreateTimeOffsetDateTime()).thenReturn(updateTime);
+        when(blob.getUpdateTimeOffsetDateTime()).thenReturn(updateTime);
+        return blob;
+    }
+
+    @Test
+    void testScrubReportsWithoutRepairing() {
+        StorageScrubber scrubber = new StorageScrubber(bookRepo, bookContentService, catalogueService, 2, 0, 60, false, false);
+
+        StorageScrubber.Report report = scrubber.scrub();
+
+        assertEquals(6, report.getBlobsScanned());
+        assertEquals(4, report.getOrphanedBlobs());
+        assertEquals(0, report.getDeletedBlobs());
+        assertEquals(2, report.getRowsScanned());
+        assertEquals(1, report.getDanglingRows());
+        verify(bookContentService, never()).deleteOrphanedContent(anyList());
+        verify(catalogueService, never()).deleteBooks(any());
+    }
+
+    @Test
+    void testScrubRepairsOnlyOrphansPastGracePeriod() {
+        StorageScrubber scrubber = new StorageScrubber(bookRepo, bookContentService, catalogueService, 10, 0, 60, true, true);
+
+        StorageScrubber.Report report = scrubber.scrub();
+
+        assertEquals(2, report.getDeletedBlobs());
+        assertEquals(1, report.getDeletedRows());
+        verify(bookContentService).deleteOrphanedContent(Collections.singletonList(orphan));
+        verify(bookContentService).deleteOrphanedContent(Arrays.asList(stalePagePack, orphanedPagePack));
+        verify(catalogueService).deleteBooks(Collections.singletonList(danglingBook));
+    }
+}
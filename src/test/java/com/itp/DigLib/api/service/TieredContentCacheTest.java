@@ -0,0 +1,54 @@
+package com.itp.DigLib.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+public class TieredContentCacheTest {
+
+    @Test
+    void testSharedHitPopulatesLocalCache() {
+        LocalContentCache local = new LocalContentCache(1024);
+        LocalContentCache shared = new LocalContentCache(1024);
+        shared.put("key", new byte[] {1, 2, 3});
+
+        TieredContentCache cache = new TieredContentCache(local, shared);
+
+        assertArrayEquals(new byte[] {1, 2, 3}, cache.get("key"));
+        assertArrayEquals(new byte[] {1, 2, 3}, local.get("key"));
+    }
+
+    @Test
+    void testPutWritesBothTiers() {
+        LocalContentCache local = new LocalContentCache(1024);
+        LocalContentCache shared = new LocalContentCache(1024);
+        TieredContentCache cache = new TieredContentCache(local, shared);
+
+        cache.put("key", new byte[] {4});
+
+        assertArrayEquals(new byte[] {4}, local.get("key"));
+        assertArrayEquals(new byte[] {4}, shared.get("key"));
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    void testSharedFailureIsAMiss() {
+        LocalContentCache local = new LocalContentCache(1024);
+        ContentCache failing = new ContentCache() {
+            @Override
+            public byte[] get(String key) {
+                throw new IllegalStateException("Redis is down");
+            }
+
+            @Override
+            public void put(String key, byte[] content) {
+                throw new IllegalStateException("Redis is down");
+            }
+        };
+        TieredContentCache cache = new TieredContentCache(local, failing);
+
+        assertNull(cache.get("key"));
+        cache.put("key", new byte[] {5});
+        assertArrayEquals(new byte[] {5}, cache.get("key"));
+    }
+}
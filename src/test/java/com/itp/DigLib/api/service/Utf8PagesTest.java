@@ -0,0 +1,36 @@
+package com.itp.DigLib.api.service;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+public class Utf8PagesTest {
+
+    @Test
+    void testAsciiBoundariesAreUnchanged() {
+        byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(0, Utf8Pages.align(content, 0));
+        assertEquals(4, Utf8Pages.align(content, 4));
+        assertEquals(10, Utf8Pages.align(content, 10));
+    }
+
+    @Test
+    void testBoundaryInsideCharacterMovesToItsStart() {
+        // "a€b", the euro sign takes the bytes 1 to 3
+        byte[] content = "a€b".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(1, Utf8Pages.align(content, 1));
+        assertEquals(1, Utf8Pages.align(content, 2));
+        assertEquals(1, Utf8Pages.align(content, 3));
+        assertEquals(4, Utf8Pages.align(content, 4));
+    }
+
+    @Test
+    void testBacksOffAtMostThreeBytes() {
+        byte[] content = {'a', (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 'b'};
+
+        assertEquals(1, Utf8Pages.align(content, 4));
+    }
+}
@@ -0,0 +1,284 @@
+package com.itp.DigLib.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.storage.BucketInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+
+/**
+ * Drives mixed read, list and upload traffic against the whole application, backed by
+ * a MySQL container and a fake-gcs-server container in place of Cloud Storage, and
+ * reports throughput and p50/p99/p999 latency per operation.
+ *
+ * <p>Only runs with {@code mvn -Pload-test test}. Everything runs locally, so the
+ * load test works offline once the container images are pulled. Tunable with system
+ * properties:</p>
+ * <ul>
+ *   <li>{@code loadtest.books} number of books seeded (200)</li>
+ *   <li>{@code loadtest.book-size} size of each book in bytes (65536)</li>
+ *   <li>{@code loadtest.duration} seconds of mixed traffic (30)</li>
+ *   <li>{@code loadtest.concurrency} concurrent clients (16)</li>
+ *   <li>{@code loadtest.mix} operation weights ({@code read=60,list=20,range=10,text=5,upload=5})</li>
+ *   <li>{@code loadtest.budget.p99-ms} fails the run when the overall p99 exceeds it (off)</li>
+ * </ul>
+ */
+@Tag("load")
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CatalogueLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueLoadTest.class);
+
+    private static final String BUCKET = "diglib-load-test";
+    private static final int GCS_PORT = 4443;
+    private static final int BOOKS = Integer.getInteger("loadtest.books", 200);
+    private static final int BOOK_SIZE = Integer.getInteger("loadtest.book-size", 64 * 1024);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 30);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final String MIX = System.getProperty("loadtest.mix", "read=60,list=20,range=10,text=5,upload=5");
+    private static final long P99_BUDGET_MS = Long.getLong("loadtest.budget.p99-ms", 0);
+    private static final int PAGE_SIZE = 1000;
+    private static final String[] WORDS = {
+        "the", "library", "reader", "page", "chapter", "story", "quiet", "evening", "light", "window",
+        "river", "mountain", "letter", "journey", "memory", "garden", "winter", "harbour", "voice", "road"
+    };
+
+    @Container
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @Container
+    static final GenericContainer<?> gcs = new GenericContainer<>("fsouza/fake-gcs-server:1.49.3")
+            .withExposedPorts(GCS_PORT)
+            .withCommand("-scheme", "http", "-port", String.valueOf(GCS_PORT), "-backend", "memory");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("gcp.bucket.name", () -> BUCKET);
+        registry.add("book.page.size", () -> String.valueOf(PAGE_SIZE));
+        registry.add("ratelimit.enabled", () -> "false");
+    }
+
+    @TestConfiguration
+    static class EmulatorStorageConfig {
+        @Bean
+        @Primary
+        Storage emulatorStorage() {
+            Storage storage = StorageOptions.newBuilder()
+                    .setHost("http://" + gcs.getHost() + ":" + gcs.getMappedPort(GCS_PORT))
+                    .setProjectId("diglib-load-test")
+                    .setCredentials(NoCredentials.getInstance())
+                    .build()
+                    .getService();
+            storage.create(BucketInfo.of(BUCKET));
+            return storage;
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    private final AtomicLong isbns = new AtomicLong(9780000000000L);
+
+    @Test
+    void mixedTraffic() throws Exception {
+        List<Integer> ids = seed();
+        assertEquals(BOOKS, ids.size());
+
+        Map<String, Integer> mix = parseMix(MIX);
+        LatencyReport report = new LatencyReport();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        long start = System.nanoTime();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            running.add(clients.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    String operation = pick(mix);
+                    long begin = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = execute(operation, ids);
+                    } catch (RuntimeException e) {
+                        logger.warn("{} failed: {}", operation, e.getMessage());
+                        ok = false;
+                    }
+                    long elapsed = System.nanoTime() - begin;
+                    if (ok) {
+                        report.record(operation, elapsed);
+                    } else {
+                        report.recordError();
+                    }
+                }
+            }));
+        }
+        for (Future<?> client : running) {
+            client.get();
+        }
+        clients.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        logger.info("Load test with {} books of {} bytes, {} clients for {} s, mix {}:{}{}",
+            BOOKS, BOOK_SIZE, CONCURRENCY, DURATION_SECONDS, MIX, System.lineSeparator(), report.format(seconds));
+
+        assertEquals(0, report.getErrors(), "requests failed during the load test");
+        if (P99_BUDGET_MS > 0) {
+            long p99Micros = report.summarize(seconds).get("total").getP99Micros();
+            assertTrue(p99Micros <= TimeUnit.MILLISECONDS.toMicros(P99_BUDGET_MS),
+                "p99 of " + p99Micros / 1000.0 + " ms exceeds the budget of " + P99_BUDGET_MS + " ms");
+        }
+    }
+
+    private List<Integer> seed() throws Exception {
+        ExecutorService seeders = Executors.newFixedThreadPool(Math.min(CONCURRENCY, 8));
+        List<Future<Integer>> uploads = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            uploads.add(seeders.submit(this::seedBook));
+        }
+        List<Integer> ids = new ArrayList<>(BOOKS);
+        for (Future<Integer> upload : uploads) {
+            ids.add(upload.get());
+        }
+        seeders.shutdown();
+        logger.info("Seeded {} books of {} bytes", ids.size(), BOOK_SIZE);
+        return Collections.unmodifiableList(ids);
+    }
+
+    private boolean execute(String operation, List<Integer> ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = ids.get(random.nextInt(ids.size()));
+        int pages = (BOOK_SIZE + PAGE_SIZE - 1) / PAGE_SIZE;
+        switch (operation) {
+            case "read":
+                return ok(rest.getForEntity("/books/" + id + "/content?page=" + random.nextInt(pages), String.class));
+            case "list":
+                return ok(rest.getForEntity("/books?page=" + random.nextInt(Math.max(1, BOOKS / 10)) + "&size=10", String.class));
+            case "range":
+                int from = random.nextInt(Math.max(1, BOOK_SIZE - 4096));
+                return ok(rest.getForEntity("/books/" + id + "/content/range?from=" + from + "&length=4096", byte[].class));
+            case "text":
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                return ok(rest.exchange("/books/" + id + "/content/text?page=" + random.nextInt(pages),
+                    HttpMethod.GET, new HttpEntity<>(headers), byte[].class));
+            case "upload":
+                return ok(upload());
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private int seedBook() {
+        ResponseEntity<String> response = upload();
+        if (!ok(response)) {
+            throw new IllegalStateException("Upload failed with " + response.getStatusCode() + ": " + response.getBody());
+        }
+        return Integer.parseInt(response.getBody().substring("ID:".length()));
+    }
+
+    private ResponseEntity<String> upload() {
+        long isbn = isbns.getAndIncrement();
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("title", "Load Test Book " + isbn);
+        form.add("author", "Load Test");
+        form.add("genre", "Benchmark");
+        form.add("isbn", String.valueOf(isbn));
+        form.add("year", "2000");
+        form.add("content", new ByteArrayResource(content(isbn)) {
+            @Override
+            public String getFilename() {
+                return isbn + ".txt";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return rest.postForEntity("/books", new HttpEntity<>(form, headers), String.class);
+    }
+
+    /**
+     * Generates text of {@code loadtest.book-size} bytes that compresses like prose and
+     * is unique per book, so uploads are not deduplicated.
+     */
+    private static byte[] content(long seed) {
+        StringBuilder text = new StringBuilder(BOOK_SIZE + 16).append(seed).append('\n');
+        Random random = new Random(seed);
+        while (text.length() < BOOK_SIZE) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        text.setLength(BOOK_SIZE);
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean ok(ResponseEntity<?> response) {
+        return response.getStatusCode().is2xxSuccessful();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> cumulative = new LinkedHashMap<>();
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            total += Integer.parseInt(weight[1].trim());
+            cumulative.put(weight[0].trim(), total);
+        }
+        return cumulative;
+    }
+
+    private static String pick(Map<String, Integer> cumulative) {
+        int total = 0;
+        for (int weight : cumulative.values()) {
+            total = weight;
+        }
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : cumulative.entrySet()) {
+            if (roll < entry.getValue()) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+}
@@ -0,0 +1,123 @@
+package com.itp.DigLib.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects request latencies per operation and summarizes them as throughput and
+ * latency percentiles. Recording is thread-safe.
+ */
+public class LatencyReport {
+    private final Map<String, Samples> samplesByOperation = new TreeMap<>();
+    private long errors;
+
+    private static class Samples {
+        private long[] nanos = new long[1024];
+        private int count;
+
+        void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+    }
+
+    /**
+     * A summary of the latencies of one operation.
+     */
+    public static class Summary {
+        private final String operation;
+        private final int count;
+        private final double throughput;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long p999Micros;
+        private final long maxMicros;
+
+        Summary(String operation, long[] sortedNanos, double seconds) {
+            this.operation = operation;
+            this.count = sortedNanos.length;
+            this.throughput = count / seconds;
+            this.p50Micros = percentileMicros(sortedNanos, 0.50);
+            this.p99Micros = percentileMicros(sortedNanos, 0.99);
+            this.p999Micros = percentileMicros(sortedNanos, 0.999);
+            this.maxMicros = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sortedNanos[count - 1]);
+        }
+
+        public String getOperation() { return operation; }
+        public int getCount() { return count; }
+        public double getThroughput() { return throughput; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getP999Micros() { return p999Micros; }
+        public long getMaxMicros() { return maxMicros; }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %8d %10.1f %10.2f %10.2f %10.2f %10.2f", operation, count, throughput,
+                p50Micros / 1000.0, p99Micros / 1000.0, p999Micros / 1000.0, maxMicros / 1000.0);
+        }
+    }
+
+    static long percentileMicros(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sortedNanos[Math.max(0, index)]);
+    }
+
+    public synchronized void record(String operation, long nanos) {
+        samplesByOperation.computeIfAbsent(operation, key -> new Samples()).add(nanos);
+    }
+
+    public synchronized void recordError() {
+        errors++;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Summarizes every operation, plus all operations together under {@code total}.
+     *
+     * @param seconds the duration the samples were collected over
+     * @return the summaries, by operation
+     */
+    public synchronized Map<String, Summary> summarize(double seconds) {
+        Map<String, Summary> summaries = new TreeMap<>();
+        long[] all = new long[0];
+        for (Map.Entry<String, Samples> entry : samplesByOperation.entrySet()) {
+            long[] sorted = Arrays.copyOf(entry.getValue().nanos, entry.getValue().count);
+            Arrays.sort(sorted);
+            summaries.put(entry.getKey(), new Summary(entry.getKey(), sorted, seconds));
+
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + sorted.length);
+            System.arraycopy(sorted, 0, all, offset, sorted.length);
+        }
+        Arrays.sort(all);
+        summaries.put("total", new Summary("total", all, seconds));
+        return summaries;
+    }
+
+    /**
+     * Formats the summaries as a table, latencies in milliseconds.
+     *
+     * @param seconds the duration the samples were collected over
+     * @return the formatted table
+     */
+    public String format(double seconds) {
+        StringBuilder table = new StringBuilder(String.format("%-8s %8s %10s %10s %10s %10s %10s%n",
+            "op", "count", "req/s", "p50", "p99", "p999", "max"));
+        for (Summary summary : summarize(seconds).values()) {
+            table.append(summary).append(System.lineSeparator());
+        }
+        table.append("errors: ").append(getErrors());
+        return table.toString();
+    }
+}